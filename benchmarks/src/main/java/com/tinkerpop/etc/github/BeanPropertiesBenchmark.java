@@ -0,0 +1,90 @@
+package com.tinkerpop.etc.github;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinkerpop.etc.github.beans.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the graph properties of a bean, as EventHandler.setProperties does:
+ * through the precomputed accessors of {@link BeanProperties}, and by the per-field reflection it replaced,
+ * which looked up the fields of the class, and checked the type and rewrote the key of each value, on every call.
+ * The beans are the event, its payload and its pull request, from the PullRequestEvent sample.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanPropertiesBenchmark {
+
+    @Param({"event", "payload", "pullRequest"})
+    public String bean;
+
+    private Object source;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(MapperFeature.USE_ANNOTATIONS, true);
+        Event event = mapper.readValue(
+                SampleEvents.getJson(mapper, GithubSchema.EventType.PullRequestEvent), Event.class);
+
+        if (bean.equals("event")) {
+            source = event;
+        } else if (bean.equals("payload")) {
+            source = event.payload;
+        } else if (bean.equals("pullRequest")) {
+            source = event.payload.pull_request;
+        } else {
+            throw new IllegalArgumentException("no such bean: " + bean);
+        }
+    }
+
+    @Benchmark
+    public void beanProperties(final Blackhole blackhole) throws IllegalAccessException {
+        BeanProperties properties = BeanProperties.of(source.getClass());
+        for (int i = 0; i < properties.size(); i++) {
+            Object value = properties.getValue(source, i);
+            if (null != value) {
+                blackhole.consume(properties.getKey(i));
+                blackhole.consume(value);
+            }
+        }
+    }
+
+    // the loop of setProperties before BeanProperties
+    @Benchmark
+    public void fieldReflection(final Blackhole blackhole) throws IllegalAccessException {
+        Class<?> clazz = source.getClass();
+        for (Field f : clazz.getFields()) {
+            Object value = f.get(source);
+            if (null != value) {
+                if (EventHandler.PROPERTY_CLASSES.contains(value.getClass())) {
+                    String key = f.getName();
+                    key = EventHandler.fixPropertyKey(key);
+                    blackhole.consume(key);
+                    blackhole.consume(value);
+                }
+            }
+        }
+    }
+}
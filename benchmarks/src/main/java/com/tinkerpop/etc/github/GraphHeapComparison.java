@@ -0,0 +1,124 @@
+package com.tinkerpop.etc.github;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.etc.github.beans.Event;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Compares the heap retained by a {@link CompactGraph} and by a TinkerGraph holding the same events.
+ * The sample events are loaded again and again, each copy with its own actor and repository, shared with one other
+ * copy, so that the graph grows in users and repositories as well as in events.
+ * Both graphs are created by {@link GraphFactory}, and loaded by an {@link EventHandler} with default settings.
+ * <p/>
+ * Usage: java -cp benchmarks.jar com.tinkerpop.etc.github.GraphHeapComparison [copies]
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class GraphHeapComparison {
+    private static final int DEFAULT_COPIES = 2000;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String[] lines;
+
+    public GraphHeapComparison() throws Exception {
+        mapper.configure(MapperFeature.USE_ANNOTATIONS, true);
+
+        // DownloadEvent and ForkApplyEvent have no samples
+        lines = new String[GithubSchema.EventType.values().length - 2];
+        int i = 0;
+        for (GithubSchema.EventType type : GithubSchema.EventType.values()) {
+            if (GithubSchema.EventType.DownloadEvent != type && GithubSchema.EventType.ForkApplyEvent != type) {
+                lines[i++] = SampleEvents.getJson(mapper, type);
+            }
+        }
+    }
+
+    /**
+     * Loads the given number of copies of the sample events into the graph
+     */
+    public void load(final Graph graph,
+                     final int copies) throws Exception {
+        EventHandler handler = new EventHandler(graph);
+        for (int c = 0; c < copies; c++) {
+            String suffix = "-" + c / 2;
+            for (String line : lines) {
+                Event event = mapper.readValue(line, Event.class);
+                if (null != event.actor) {
+                    event.actor += suffix;
+                }
+                if (null != event.actor_attributes && null != event.actor_attributes.login) {
+                    event.actor_attributes.login += suffix;
+                }
+                if (null != event.repository) {
+                    event.repository.name += suffix;
+                    event.repository.id = null == event.repository.id ? null : event.repository.id * copies + c;
+                }
+                handler.handle(event);
+            }
+        }
+    }
+
+    /**
+     * @return the number of bytes of heap retained by the graph which the given loader creates
+     */
+    public long measure(final GraphLoader loader,
+                        final int copies) throws Exception {
+        long before = usedHeap();
+        Graph graph = loader.create();
+        load(graph, copies);
+        long after = usedHeap();
+
+        System.out.println(graph.getClass().getSimpleName() + ": " + count(graph.getVertices()) + " vertices, "
+                + count(graph.getEdges()) + " edges, " + (after - before) / 1024 + " KB");
+        graph.shutdown();
+        return after - before;
+    }
+
+    private static int count(final Iterable<?> i) {
+        int n = 0;
+        for (Object o : i) {
+            n++;
+        }
+        return n;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    interface GraphLoader {
+        Graph create();
+    }
+
+    public static void main(final String[] args) throws Exception {
+        int copies = args.length > 0 ? Integer.valueOf(args[0]) : DEFAULT_COPIES;
+        GraphHeapComparison comparison = new GraphHeapComparison();
+
+        // once each, untimed, so that classes and caches are in place before measuring
+        comparison.load(GraphFactory.createCompactGraph(), 1);
+        comparison.load(GraphFactory.createTinkerGraph(), 1);
+
+        long compact = comparison.measure(new GraphLoader() {
+            public Graph create() {
+                return GraphFactory.createCompactGraph();
+            }
+        }, copies);
+        long tinker = comparison.measure(new GraphLoader() {
+            public Graph create() {
+                return GraphFactory.createTinkerGraph();
+            }
+        }, copies);
+
+        System.out.println(String.format("CompactGraph retains %.1f%% of the heap of TinkerGraph",
+                100.0 * compact / tinker));
+    }
+}
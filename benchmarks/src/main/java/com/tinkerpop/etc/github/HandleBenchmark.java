@@ -0,0 +1,59 @@
+package com.tinkerpop.etc.github;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.etc.github.beans.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of an already-deserialized Event to vertices, edges and properties in a TinkerGraph, per event type.
+ * The graph is recreated for each iteration, so that its growth does not dominate the measurement.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandleBenchmark {
+
+    @Param({"CommitCommentEvent", "CreateEvent", "DeleteEvent", "FollowEvent", "ForkEvent", "GistEvent",
+            "GollumEvent", "IssueCommentEvent", "IssuesEvent", "MemberEvent", "PublicEvent", "PullRequestEvent",
+            "PullRequestReviewCommentEvent", "PushEvent", "ReleaseEvent", "TeamAddEvent", "WatchEvent"})
+    public GithubSchema.EventType eventType;
+
+    private Event event;
+    private EventHandler handler;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        event = objectMapper.readValue(SampleEvents.getJson(objectMapper, eventType), Event.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void createGraph() {
+        handler = new EventHandler(new TinkerGraph());
+    }
+
+    @Benchmark
+    public void handle() throws IllegalAccessException {
+        handler.handle(event);
+    }
+}
@@ -0,0 +1,83 @@
+package com.tinkerpop.etc.github;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.thinkaurelius.titan.graphdb.idmanagement.IDInspector;
+import com.thinkaurelius.titan.graphdb.idmanagement.IDManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation of random vertex and relation IDs: {@link IdAllocator}, one per thread, against the earlier
+ * rejection loop, which hashed values from a shared {@link Random} until Titan accepted one.
+ * Run with several threads (e.g. -t 4) to see the contention on the shared generator.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdAllocationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class RejectionLoop {
+        private final Random random = new Random();
+        private final HashFunction hashFunction = Hashing.sipHash24();
+        private final IDInspector idInspector = new IDManager().getIDInspector();
+
+        public long vertexId() {
+            long id;
+            do {
+                id = Math.abs(hashFunction.hashLong(random.nextLong()).asLong());
+            } while (!idInspector.isVertexID(id));
+
+            return id;
+        }
+
+        public long relationId() {
+            long id;
+            do {
+                id = Math.abs(hashFunction.hashLong(random.nextLong()).asLong());
+            } while (!idInspector.isRelationID(id));
+
+            return id;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Allocator {
+        private final IdAllocator allocator = new IdAllocator();
+    }
+
+    @Benchmark
+    public long rejectionLoopVertexId(final RejectionLoop state) {
+        return state.vertexId();
+    }
+
+    @Benchmark
+    public long rejectionLoopRelationId(final RejectionLoop state) {
+        return state.relationId();
+    }
+
+    @Benchmark
+    public long allocatorVertexId(final Allocator state) {
+        return state.allocator.nextVertexId();
+    }
+
+    @Benchmark
+    public long allocatorRelationId(final Allocator state) {
+        return state.allocator.nextRelationId();
+    }
+}
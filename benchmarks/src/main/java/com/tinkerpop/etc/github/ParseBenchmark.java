@@ -0,0 +1,50 @@
+package com.tinkerpop.etc.github;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinkerpop.etc.github.beans.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson deserialization of a single line of archive JSON into an Event, per event type
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"CommitCommentEvent", "CreateEvent", "DeleteEvent", "FollowEvent", "ForkEvent", "GistEvent",
+            "GollumEvent", "IssueCommentEvent", "IssuesEvent", "MemberEvent", "PublicEvent", "PullRequestEvent",
+            "PullRequestReviewCommentEvent", "PushEvent", "ReleaseEvent", "TeamAddEvent", "WatchEvent"})
+    public GithubSchema.EventType eventType;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String json;
+
+    @Setup
+    public void setUp() throws IOException {
+        json = SampleEvents.getJson(objectMapper, eventType);
+    }
+
+    @Benchmark
+    public Event deserialize() throws IOException {
+        return objectMapper.readValue(json, Event.class);
+    }
+}
@@ -0,0 +1,35 @@
+package com.tinkerpop.etc.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Access to the sample events bundled with the project, one per {@link GithubSchema.EventType}.
+ * There are no samples of DownloadEvent or ForkApplyEvent, which no longer appear in the archive.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+class SampleEvents {
+    private SampleEvents() {
+    }
+
+    /**
+     * @return the sample event of the given type, as a single line of JSON as in the archive files
+     */
+    static String getJson(final ObjectMapper mapper,
+                          final GithubSchema.EventType type) throws IOException {
+        InputStream in = SampleEvents.class.getResourceAsStream(type.name() + ".json");
+        if (null == in) {
+            throw new IllegalArgumentException("no sample event of type " + type);
+        }
+
+        try {
+            return mapper.writeValueAsString(mapper.readValue(in, JsonNode.class));
+        } finally {
+            in.close();
+        }
+    }
+}
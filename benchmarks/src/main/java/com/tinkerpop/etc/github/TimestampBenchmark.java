@@ -0,0 +1,43 @@
+package com.tinkerpop.etc.github;
+
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of event timestamps in each of the archive's two formats
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimestampBenchmark {
+
+    private final EventHandler handler = new EventHandler(new TinkerGraph());
+
+    public String newFormat = "2014-05-31T00:13:30-07:00";
+    public String oldFormat = "2012/03/11 00:00:00 -0800";
+
+    @Benchmark
+    public long parseNewFormat() {
+        return handler.parseTimestamp(newFormat);
+    }
+
+    @Benchmark
+    public long parseOldFormat() {
+        return handler.parseTimestamp(oldFormat);
+    }
+}
@@ -0,0 +1,62 @@
+package com.tinkerpop.etc.github;
+
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Derivation of a Titan vertex ID from the original (prefixed) ID of a user, repository etc.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VertexIdBenchmark {
+
+    @Param({"user:xtagon", "repo:liuliu/ccv", "pr:13213419"})
+    public String originalId;
+
+    private final EventHandler handler = new EventHandler(new TinkerGraph());
+
+    private final VertexIdHasher.Key key = new VertexIdHasher.Key();
+    private String prefix;
+    private String id;
+
+    @Setup
+    public void setUp() {
+        int i = originalId.indexOf(':') + 1;
+        prefix = originalId.substring(0, i);
+        id = originalId.substring(i);
+    }
+
+    @Benchmark
+    public long hashedVertexId() {
+        return handler.hashedVertexId(originalId);
+    }
+
+    // as for each reference to a user, repository etc.; repeated keys are served from the hasher's cache
+    @Benchmark
+    public long hashedVertexIdFromKey() {
+        return handler.hashedVertexId(key.set(prefix, id));
+    }
+
+    @Benchmark
+    public long concatenatedVertexId() {
+        return handler.hashedVertexId(prefix + id);
+    }
+}
@@ -0,0 +1,372 @@
+package com.tinkerpop.etc.github;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A read-only replica of the edges of a graph, held in off-heap memory, for time-ranged neighborhood queries such as
+ * "the most recent N events of this user" without garbage collection pauses or calls to the storage backend.
+ * <p/>
+ * For each vertex, label and direction, the edges are kept in a contiguous run in descending order of timestamp,
+ * as Titan orders them (see {@link GraphFactory}).
+ * A run is found by binary search in an index of runs, and a time range by binary search within the run.
+ * Stores are built with a {@link Builder}, which sorts its edges off-heap as well.
+ * Only the labels of {@link GithubSchema.Label} are supported.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class AdjacencyStore {
+    // entry fields: the vertex and direction, then the edge
+    private static final int
+            E_VERTEX = 0,
+            E_LABEL_DIRECTION = 8,
+            E_TIMESTAMP = 12,
+            E_OTHER = 20,
+            E_EDGE = 28,
+            ENTRY_SIZE = 36;
+
+    // index fields: one record per run of entries
+    private static final int
+            I_VERTEX = 0,
+            I_LABEL_DIRECTION = 8,
+            I_COUNT = 12,
+            I_START = 16,
+            INDEX_SIZE = 24;
+
+    private final OffHeapRecords entries;
+    private final OffHeapRecords index;
+
+    private AdjacencyStore(final OffHeapRecords entries,
+                           final OffHeapRecords index) {
+        this.entries = entries;
+        this.index = index;
+    }
+
+    /**
+     * @return the number of (vertex, label, direction) entries in the store; each edge has two
+     */
+    public long getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of edges with the given label and direction at the given vertex
+     */
+    public long degree(final long vertexId,
+                       final GithubSchema.Label label,
+                       final Direction direction) {
+        long run = findRun(vertexId, labelDirection(label, direction));
+        return run < 0 ? 0 : index.getInt(run, I_COUNT);
+    }
+
+    /**
+     * @return a cursor over all edges with the given label and direction at the given vertex, newest first
+     */
+    public Cursor query(final long vertexId,
+                        final GithubSchema.Label label,
+                        final Direction direction) {
+        return query(vertexId, label, direction, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param minTimestamp the earliest timestamp to include
+     * @param maxTimestamp the latest timestamp to include
+     * @return a cursor over the edges with the given label and direction at the given vertex, in the given
+     * (inclusive) time range, newest first
+     */
+    public Cursor query(final long vertexId,
+                        final GithubSchema.Label label,
+                        final Direction direction,
+                        final long minTimestamp,
+                        final long maxTimestamp) {
+        long run = findRun(vertexId, labelDirection(label, direction));
+        if (run < 0) {
+            return new Cursor(0, 0, minTimestamp);
+        }
+
+        long start = index.getLong(run, I_START);
+        long end = start + index.getInt(run, I_COUNT);
+
+        // the first entry no later than maxTimestamp
+        long low = start, high = end;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (entries.getLong(mid, E_TIMESTAMP) > maxTimestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return new Cursor(low, end, minTimestamp);
+    }
+
+    private long findRun(final long vertexId,
+                         final int labelDirection) {
+        long low = 0, high = index.size() - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            int c = compare(index.getLong(mid, I_VERTEX), index.getInt(mid, I_LABEL_DIRECTION),
+                    vertexId, labelDirection);
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int labelDirection(final GithubSchema.Label label,
+                                      final Direction direction) {
+        if (Direction.OUT == direction) {
+            return label.ordinal() * 2;
+        } else if (Direction.IN == direction) {
+            return label.ordinal() * 2 + 1;
+        } else {
+            throw new IllegalArgumentException("direction must be OUT or IN");
+        }
+    }
+
+    private static int compare(final long vertex1,
+                               final int labelDirection1,
+                               final long vertex2,
+                               final int labelDirection2) {
+        return vertex1 < vertex2 ? -1 : vertex1 > vertex2 ? 1
+                : labelDirection1 < labelDirection2 ? -1 : labelDirection1 > labelDirection2 ? 1 : 0;
+    }
+
+    /**
+     * A forward-only cursor over a range of edges, which allocates nothing as it advances
+     */
+    public class Cursor {
+        private long position;
+        private final long end;
+        private final long minTimestamp;
+        private long current = -1;
+
+        private Cursor(final long start,
+                       final long end,
+                       final long minTimestamp) {
+            this.position = start;
+            this.end = end;
+            this.minTimestamp = minTimestamp;
+        }
+
+        /**
+         * @return whether there was another edge
+         */
+        public boolean next() {
+            if (position >= end || entries.getLong(position, E_TIMESTAMP) < minTimestamp) {
+                current = -1;
+                return false;
+            }
+
+            current = position++;
+            return true;
+        }
+
+        public long getTimestamp() {
+            return entries.getLong(current(), E_TIMESTAMP);
+        }
+
+        /**
+         * @return the ID of the vertex at the other end of the edge
+         */
+        public long getVertexId() {
+            return entries.getLong(current(), E_OTHER);
+        }
+
+        public long getEdgeId() {
+            return entries.getLong(current(), E_EDGE);
+        }
+
+        private long current() {
+            if (current < 0) {
+                throw new IllegalStateException("no current edge");
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Collects edges off-heap, then sorts them into an {@link AdjacencyStore}.
+     * A builder can be used only once.
+     */
+    public static class Builder {
+        private static final int INSERTION_SORT_THRESHOLD = 16;
+
+        private static final Map<String, GithubSchema.Label> LABELS;
+
+        static {
+            LABELS = new HashMap<String, GithubSchema.Label>();
+            for (GithubSchema.Label l : GithubSchema.Label.values()) {
+                LABELS.put(l.name(), l);
+            }
+        }
+
+        private OffHeapRecords entries = new OffHeapRecords(ENTRY_SIZE);
+
+        /**
+         * Adds an edge, which will be found both from its out-vertex and from its in-vertex
+         */
+        public Builder addEdge(final long edgeId,
+                               final long outVertexId,
+                               final long inVertexId,
+                               final GithubSchema.Label label,
+                               final long timestamp) {
+            checkNotBuilt();
+
+            addEntry(outVertexId, labelDirection(label, Direction.OUT), timestamp, inVertexId, edgeId);
+            addEntry(inVertexId, labelDirection(label, Direction.IN), timestamp, outVertexId, edgeId);
+            return this;
+        }
+
+        /**
+         * Adds all edges of the given graph with a numeric ID, a label of the schema and a timestamp
+         *
+         * @return the number of edges added
+         */
+        public long addGraph(final Graph graph) {
+            long count = 0;
+            for (Edge e : graph.getEdges()) {
+                GithubSchema.Label label = LABELS.get(e.getLabel());
+                Object timestamp = e.getProperty(GithubSchema.TIMESTAMP);
+                if (null == label || !(timestamp instanceof Long)) {
+                    continue;
+                }
+
+                addEdge(toLong(e.getId()),
+                        toLong(e.getVertex(Direction.OUT).getId()),
+                        toLong(e.getVertex(Direction.IN).getId()),
+                        label,
+                        (Long) timestamp);
+                count++;
+            }
+
+            return count;
+        }
+
+        public AdjacencyStore build() {
+            checkNotBuilt();
+
+            OffHeapRecords sorted = entries;
+            entries = null;
+
+            if (sorted.size() > 1) {
+                sort(sorted, 0, sorted.size() - 1);
+            }
+
+            OffHeapRecords index = new OffHeapRecords(INDEX_SIZE);
+            long run = -1;
+            for (long i = 0; i < sorted.size(); i++) {
+                long vertex = sorted.getLong(i, E_VERTEX);
+                int labelDirection = sorted.getInt(i, E_LABEL_DIRECTION);
+                if (run < 0 || 0 != compare(vertex, labelDirection,
+                        index.getLong(run, I_VERTEX), index.getInt(run, I_LABEL_DIRECTION))) {
+                    run = index.append();
+                    index.putLong(run, I_VERTEX, vertex);
+                    index.putInt(run, I_LABEL_DIRECTION, labelDirection);
+                    index.putLong(run, I_START, i);
+                    index.putInt(run, I_COUNT, 0);
+                }
+
+                index.putInt(run, I_COUNT, index.getInt(run, I_COUNT) + 1);
+            }
+
+            return new AdjacencyStore(sorted, index);
+        }
+
+        private void addEntry(final long vertexId,
+                              final int labelDirection,
+                              final long timestamp,
+                              final long otherVertexId,
+                              final long edgeId) {
+            long i = entries.append();
+            entries.putLong(i, E_VERTEX, vertexId);
+            entries.putInt(i, E_LABEL_DIRECTION, labelDirection);
+            entries.putLong(i, E_TIMESTAMP, timestamp);
+            entries.putLong(i, E_OTHER, otherVertexId);
+            entries.putLong(i, E_EDGE, edgeId);
+        }
+
+        private void checkNotBuilt() {
+            if (null == entries) {
+                throw new IllegalStateException("store has already been built");
+            }
+        }
+
+        private static long toLong(final Object id) {
+            return id instanceof Number ? ((Number) id).longValue() : Long.valueOf(id.toString());
+        }
+
+        // orders by vertex and label/direction, then by descending timestamp, then by edge ID
+        private static int compareEntries(final OffHeapRecords r,
+                                          final long a,
+                                          final long b) {
+            int c = compare(r.getLong(a, E_VERTEX), r.getInt(a, E_LABEL_DIRECTION),
+                    r.getLong(b, E_VERTEX), r.getInt(b, E_LABEL_DIRECTION));
+            if (0 != c) {
+                return c;
+            }
+
+            long ta = r.getLong(a, E_TIMESTAMP), tb = r.getLong(b, E_TIMESTAMP);
+            if (ta != tb) {
+                return ta > tb ? -1 : 1;
+            }
+
+            long ea = r.getLong(a, E_EDGE), eb = r.getLong(b, E_EDGE);
+            return ea < eb ? -1 : ea > eb ? 1 : 0;
+        }
+
+        // an in-place quicksort, recursing only into the smaller partition
+        private static void sort(final OffHeapRecords r,
+                                 final long from,
+                                 final long to) {
+            long low = from, high = to;
+            while (high - low >= INSERTION_SORT_THRESHOLD) {
+                long mid = (low + high) >>> 1;
+
+                // median of three, moved to the end as the pivot
+                if (compareEntries(r, mid, low) < 0) {
+                    r.swap(mid, low);
+                }
+                if (compareEntries(r, high, low) < 0) {
+                    r.swap(high, low);
+                }
+                if (compareEntries(r, mid, high) < 0) {
+                    r.swap(mid, high);
+                }
+
+                long store = low;
+                for (long i = low; i < high; i++) {
+                    if (compareEntries(r, i, high) < 0) {
+                        r.swap(i, store++);
+                    }
+                }
+                r.swap(store, high);
+
+                if (store - low < high - store) {
+                    sort(r, low, store - 1);
+                    low = store + 1;
+                } else {
+                    sort(r, store + 1, high);
+                    high = store - 1;
+                }
+            }
+
+            for (long i = low + 1; i <= high; i++) {
+                for (long j = i; j > low && compareEntries(r, j, j - 1) < 0; j--) {
+                    r.swap(j, j - 1);
+                }
+            }
+        }
+    }
+}
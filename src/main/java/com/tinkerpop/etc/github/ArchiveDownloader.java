@@ -0,0 +1,342 @@
+package com.tinkerpop.etc.github;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.io.ByteStreams;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Downloads hourly GitHub Archive files, several at a time, and yields each completed file in hour order
+ * as soon as it and all earlier hours are available, so that loading can overlap with downloading.
+ * Partial downloads are kept as .tmp files and resumed with a range request.
+ * Each download is verified as a complete gzip stream before it is given its final name.
+ * <p/>
+ * A downloader may also follow the archive: rather than ending at the present, it waits for each new hour to be
+ * published, polling at a fixed interval. An hour which is not found is only skipped as missing once a later hour
+ * has been published, so hours are never skipped merely for being late, and no clock is needed to tell the two apart.
+ * Nor does a follower give up on an hour which fails to download: it logs the failure and tries again at the next poll.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+class ArchiveDownloader extends AbstractIterator<File> implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(ArchiveDownloader.class.getName());
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final long HOUR_MILLIS = 60L * 60 * 1000;
+
+    // the longest run of missing hours, after an hour which is not found, within which a later hour is looked for
+    private static final int MAX_GAP_HOURS = 72;
+
+    // the result of a download of an hour which has not yet been published
+    private static final File NOT_YET_PUBLISHED = new File("");
+
+    private final String baseUrl;
+    private final File directory;
+    private final GithubTimestamp endHour;
+    private final int threads;
+    // in follow mode, the interval at which to poll for new hours; otherwise 0
+    private final long pollMillis;
+    private final ExecutorService executor;
+
+    private final LinkedList<Future<File>> pending = new LinkedList<Future<File>>();
+    private final LinkedList<GithubTimestamp> pendingHours = new LinkedList<GithubTimestamp>();
+    private GithubTimestamp nextHour;
+
+    /**
+     * @param baseUrl   the URL of the archive, e.g. http://data.githubarchive.org/
+     * @param directory the directory in which to store downloaded files
+     * @param firstHour the first hour to download
+     * @param endHour   the last hour to download, or null to download up to the present
+     * @param threads   the number of hours to download concurrently
+     */
+    public ArchiveDownloader(final String baseUrl,
+                             final File directory,
+                             final GithubTimestamp firstHour,
+                             final GithubTimestamp endHour,
+                             final int threads) {
+        this(baseUrl, directory, firstHour, endHour, threads, 0);
+    }
+
+    /**
+     * @param pollMillis if positive, the downloader follows the archive, never ending,
+     *                   and polls for each hour not yet published at this interval.
+     *                   Otherwise, it ends with the last hour available.
+     * @see #ArchiveDownloader(String, java.io.File, GithubTimestamp, GithubTimestamp, int)
+     */
+    public ArchiveDownloader(final String baseUrl,
+                             final File directory,
+                             final GithubTimestamp firstHour,
+                             final GithubTimestamp endHour,
+                             final int threads,
+                             final long pollMillis) {
+        if (pollMillis > 0 && null != endHour) {
+            throw new IllegalArgumentException("a downloader which follows the archive has no end hour");
+        }
+
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this.directory = directory;
+        this.nextHour = firstHour;
+        this.endHour = endHour;
+        this.threads = threads;
+        this.pollMillis = pollMillis;
+
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @Override
+    protected File computeNext() {
+        while (true) {
+            while (pending.size() < threads && isAvailable(nextHour)) {
+                pending.add(executor.submit(new HourDownload(nextHour)));
+                pendingHours.add(nextHour);
+                nextHour = nextHour.nextHour();
+            }
+
+            if (pending.isEmpty()) {
+                if (pollMillis > 0) {
+                    // wait for the current hour to end
+                    pause(Math.min(pollMillis, nextHour.getTime() + HOUR_MILLIS - System.currentTimeMillis()));
+                    continue;
+                } else {
+                    return endOfData();
+                }
+            }
+
+            File file;
+            GithubTimestamp hour = pendingHours.removeFirst();
+            try {
+                file = pending.removeFirst().get();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException("interrupted while downloading", e);
+            } catch (ExecutionException e) {
+                if (0 == pollMillis) {
+                    throw new IllegalStateException("download failed", e.getCause());
+                }
+
+                // a follower outlives any outage of the archive
+                LOGGER.warning("failed to download " + hour + ": " + e.getCause() + ". Retrying after a pause");
+                retryFrom(hour);
+                continue;
+            }
+
+            if (NOT_YET_PUBLISHED == file) {
+                retryFrom(hour);
+                continue;
+            }
+
+            // null for hours which are missing from the archive
+            if (null != file) {
+                return file;
+            }
+        }
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts again from the given hour after a pause. Later hours are left to finish rather than cancelled,
+     * so that no two downloads ever write the same file; any which succeeded are then found on disk
+     */
+    private void retryFrom(final GithubTimestamp hour) {
+        for (Future<File> f : pending) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException("interrupted while downloading", e);
+            } catch (ExecutionException e) {
+                // the hour will be downloaded again
+            }
+        }
+        pending.clear();
+        pendingHours.clear();
+        nextHour = hour;
+        pause(pollMillis);
+    }
+
+    private static void pause(final long millis) {
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException("interrupted while waiting for new hours", e);
+            }
+        }
+    }
+
+    private boolean isAvailable(final GithubTimestamp hour) {
+        // when following the archive, only ask for hours which have ended, as an hour is published once complete
+        long time = pollMillis > 0 ? hour.getTime() + HOUR_MILLIS : hour.getTime();
+        return time <= System.currentTimeMillis() && (null == endHour || hour.compareTo(endHour) <= 0);
+    }
+
+    private class HourDownload implements Callable<File> {
+        private final GithubTimestamp hour;
+
+        private HourDownload(final GithubTimestamp hour) {
+            this.hour = hour;
+        }
+
+        public File call() throws IOException {
+            File file = new File(directory, "" + hour + ".json.gz");
+            if (file.exists()) {
+                return file;
+            }
+
+            URL url = new URL(baseUrl + hour + ".json.gz");
+            File tmpFile = new File(directory, "" + hour + ".json.gz.tmp");
+
+            IOException lastError = null;
+            for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+                try {
+                    if (!fetch(url, tmpFile)) {
+                        if (pollMillis > 0 && !laterHourExists(hour)) {
+                            return NOT_YET_PUBLISHED;
+                        }
+
+                        LOGGER.info("no such file: " + url);
+
+                        // just skip; there are missing hours in the archive
+                        return null;
+                    }
+                } catch (IOException e) {
+                    LOGGER.warning("failed to download " + url + " (attempt " + attempt + "): " + e.getMessage());
+                    lastError = e;
+                    continue;
+                }
+
+                if (isCompleteGzip(tmpFile)) {
+                    if (!tmpFile.renameTo(file)) {
+                        throw new IOException("could not rename " + tmpFile + " to " + file);
+                    }
+                    return file;
+                }
+
+                // start over, rather than resuming from a corrupt prefix
+                LOGGER.warning("downloaded file is not valid gzip: " + url + " (attempt " + attempt + ")");
+                tmpFile.delete();
+                lastError = new IOException("downloaded file is not valid gzip: " + url);
+            }
+
+            throw lastError;
+        }
+    }
+
+    /**
+     * Downloads the given URL into the given file, resuming from the end of the file if it already exists
+     *
+     * @return false if there is no such file in the archive, otherwise true
+     */
+    private static boolean fetch(final URL url,
+                                 final File file) throws IOException {
+        long existing = file.exists() ? file.length() : 0;
+
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        try {
+            if (existing > 0) {
+                conn.setRequestProperty("Range", "bytes=" + existing + "-");
+            }
+
+            int code = conn.getResponseCode();
+            boolean append;
+            if (HttpURLConnection.HTTP_NOT_FOUND == code) {
+                return false;
+            } else if (HttpURLConnection.HTTP_PARTIAL == code) {
+                LOGGER.info("resuming " + url + " at byte " + existing);
+                append = true;
+            } else if (HttpURLConnection.HTTP_OK == code) {
+                LOGGER.info("downloading " + url);
+                append = false;
+            } else if (416 == code) {
+                // requested range not satisfiable: there is nothing more to download
+                return true;
+            } else {
+                throw new IOException("unexpected response " + code + " for " + url);
+            }
+
+            InputStream in = conn.getInputStream();
+            try {
+                OutputStream out = new FileOutputStream(file, append);
+                try {
+                    ByteStreams.copy(in, out);
+                } finally {
+                    out.close();
+                }
+            } finally {
+                in.close();
+            }
+
+            return true;
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    // whether any hour soon after the given hour has been published, in which case the given hour is missing
+    private boolean laterHourExists(final GithubTimestamp hour) throws IOException {
+        GithubTimestamp later = hour.nextHour();
+        for (int i = 0; i < MAX_GAP_HOURS && isAvailable(later); i++) {
+            if (exists(new URL(baseUrl + later + ".json.gz"))) {
+                return true;
+            }
+            later = later.nextHour();
+        }
+
+        return false;
+    }
+
+    /**
+     * @return whether the given URL exists in the archive
+     */
+    private static boolean exists(final URL url) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        try {
+            conn.setRequestMethod("HEAD");
+            int code = conn.getResponseCode();
+            if (HttpURLConnection.HTTP_NOT_FOUND == code) {
+                return false;
+            } else if (HttpURLConnection.HTTP_OK == code) {
+                return true;
+            } else {
+                throw new IOException("unexpected response " + code + " for " + url);
+            }
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private static boolean isCompleteGzip(final File file) {
+        try {
+            InputStream in = new GZIPInputStream(new FileInputStream(file));
+            try {
+                byte[] buffer = new byte[65536];
+                while (in.read(buffer) >= 0) {
+                    // decompress to nowhere; truncation or corruption will surface as an exception
+                }
+                return true;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.tinkerpop.etc.github;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The graph properties of a bean class: those public fields whose type is one of
+ * {@link EventHandler#PROPERTY_CLASSES}, together with their property keys (see {@link EventHandler#fixPropertyKey})
+ * and JSON field names.
+ * These are computed once per class, so that writing the properties of a bean requires no field lookups,
+ * type checks or key rewriting.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class BeanProperties {
+    private static final ConcurrentMap<Class, BeanProperties> CACHE = new ConcurrentHashMap<Class, BeanProperties>();
+
+    private final Field[] fields;
+    private final String[] keys;
+    private final String[] jsonNames;
+
+    private BeanProperties(final Class clazz) {
+        List<Field> propertyFields = new ArrayList<Field>();
+        for (Field f : clazz.getFields()) {
+            if (EventHandler.PROPERTY_CLASSES.contains(f.getType())) {
+                // skip the access check on each read
+                f.setAccessible(true);
+                propertyFields.add(f);
+            }
+        }
+
+        int size = propertyFields.size();
+        fields = propertyFields.toArray(new Field[size]);
+        keys = new String[size];
+        jsonNames = new String[size];
+        for (int i = 0; i < size; i++) {
+            Field f = fields[i];
+            keys[i] = EventHandler.fixPropertyKey(f.getName());
+
+            JsonProperty annotation = f.getAnnotation(JsonProperty.class);
+            jsonNames[i] = null != annotation && annotation.value().length() > 0 ? annotation.value() : f.getName();
+        }
+    }
+
+    public static BeanProperties of(final Class clazz) {
+        BeanProperties p = CACHE.get(clazz);
+        if (null == p) {
+            p = new BeanProperties(clazz);
+            BeanProperties existing = CACHE.putIfAbsent(clazz, p);
+            if (null != existing) {
+                p = existing;
+            }
+        }
+
+        return p;
+    }
+
+    /**
+     * @return the number of properties of the bean class
+     */
+    public int size() {
+        return fields.length;
+    }
+
+    /**
+     * @return the graph property key of the i-th property
+     */
+    public String getKey(final int i) {
+        return keys[i];
+    }
+
+    /**
+     * @return the name of the i-th property in GitHub's JSON
+     */
+    public String getJsonName(final int i) {
+        return jsonNames[i];
+    }
+
+    /**
+     * @return the datatype of the i-th property; always one of {@link EventHandler#PROPERTY_CLASSES}
+     */
+    public Class getType(final int i) {
+        return fields[i].getType();
+    }
+
+    /**
+     * @return the value of the i-th property of the given bean, or null if unset
+     */
+    public Object getValue(final Object bean,
+                           final int i) throws IllegalAccessException {
+        return fields[i].get(bean);
+    }
+}
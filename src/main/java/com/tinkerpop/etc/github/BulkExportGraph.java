@@ -0,0 +1,339 @@
+package com.tinkerpop.etc.github;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Features;
+import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.VertexQuery;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * A write-only graph which, rather than storing vertices and edges, appends them to the partitioned binary
+ * intermediate described in {@link BulkFormat}, for later import by {@link BulkImporter}.
+ * {@link EventHandler} writes to it exactly as it would to a real graph.
+ * <p/>
+ * Since nothing can be read back, {@link #getVertex} always returns null, so a vertex may be added (and its
+ * properties written) many times; the importer merges all records with the same ID into a single vertex.
+ * Committing flushes the partition files, so that a checkpoint never gets ahead of the intermediate.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class BulkExportGraph implements TransactionalGraph {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final File directory;
+    private final DataOutputStream[] partitions;
+
+    private final ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+    private final DataOutputStream payload = new DataOutputStream(payloadBytes);
+
+    private final Features features;
+
+    /**
+     * @param directory  the directory of the intermediate; records are appended to any partition files already there
+     * @param partitions the number of partition files.
+     *                   Each partition must fit in memory when it is sorted, so a larger archive needs more partitions.
+     */
+    public BulkExportGraph(final File directory,
+                           final int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions must be a positive integer");
+        }
+
+        this.directory = directory;
+        this.partitions = new DataOutputStream[partitions];
+
+        features = new Features();
+        features.supportsVertexProperties = true;
+        features.supportsEdgeProperties = true;
+        features.supportsStringProperty = true;
+        features.supportsBooleanProperty = true;
+        features.supportsLongProperty = true;
+        features.supportsIntegerProperty = true;
+        features.ignoresSuppliedIds = false;
+        features.isPersistent = true;
+        features.supportsTransactions = true;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public int getPartitions() {
+        return partitions.length;
+    }
+
+    public Features getFeatures() {
+        return features;
+    }
+
+    public Vertex addVertex(final Object id) {
+        if (!(id instanceof Long)) {
+            throw new IllegalArgumentException("vertex ID must be a long: " + id);
+        }
+
+        return new ExportVertex((Long) id);
+    }
+
+    /**
+     * @return null; vertices cannot be read back from the intermediate
+     */
+    public Vertex getVertex(final Object id) {
+        return null;
+    }
+
+    public Edge addEdge(final Object id,
+                        final Vertex outVertex,
+                        final Vertex inVertex,
+                        final String label) {
+        if (!(id instanceof Long)) {
+            throw new IllegalArgumentException("edge ID must be a long: " + id);
+        }
+
+        long outId = (Long) outVertex.getId();
+        long edgeId = (Long) id;
+        try {
+            payload.writeByte(BulkFormat.EDGE);
+            payload.writeLong(edgeId);
+            payload.writeLong((Long) inVertex.getId());
+            payload.writeUTF(label);
+            writeRecord(outId);
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to write edge to bulk intermediate", e);
+        }
+
+        return new ExportEdge(edgeId, outId, label);
+    }
+
+    /**
+     * Flushes all records to the partition files
+     */
+    public void commit() {
+        try {
+            for (DataOutputStream out : partitions) {
+                if (null != out) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to flush bulk intermediate", e);
+        }
+    }
+
+    /**
+     * @throws UnsupportedOperationException always; records cannot be taken back once written
+     */
+    public void rollback() {
+        throw new UnsupportedOperationException("the bulk intermediate cannot be rolled back");
+    }
+
+    /**
+     * @deprecated use {@link #commit()} or {@link #rollback()}
+     */
+    @Deprecated
+    public void stopTransaction(final Conclusion conclusion) {
+        if (Conclusion.SUCCESS == conclusion) {
+            commit();
+        } else {
+            rollback();
+        }
+    }
+
+    /**
+     * Flushes and closes all partition files.  The graph may still be written to afterwards,
+     * in which case the files are reopened for appending.
+     */
+    public void shutdown() {
+        try {
+            for (int i = 0; i < partitions.length; i++) {
+                if (null != partitions[i]) {
+                    partitions[i].close();
+                    partitions[i] = null;
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to close bulk intermediate", e);
+        }
+    }
+
+    public void removeVertex(final Vertex vertex) {
+        throw new UnsupportedOperationException();
+    }
+
+    public Iterable<Vertex> getVertices() {
+        throw new UnsupportedOperationException();
+    }
+
+    public Iterable<Vertex> getVertices(final String key,
+                                        final Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    public Edge getEdge(final Object id) {
+        return null;
+    }
+
+    public void removeEdge(final Edge edge) {
+        throw new UnsupportedOperationException();
+    }
+
+    public Iterable<Edge> getEdges() {
+        throw new UnsupportedOperationException();
+    }
+
+    public Iterable<Edge> getEdges(final String key,
+                                   final Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    public GraphQuery query() {
+        throw new UnsupportedOperationException();
+    }
+
+    private void writeVertexProperty(final long vertexId,
+                                     final String key,
+                                     final Object value) {
+        try {
+            payload.writeByte(BulkFormat.PROPERTY);
+            payload.writeUTF(key);
+            BulkFormat.writeValue(payload, value);
+            writeRecord(vertexId);
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to write property to bulk intermediate", e);
+        }
+    }
+
+    private void writeEdgeProperty(final long outId,
+                                   final long edgeId,
+                                   final String key,
+                                   final Object value) {
+        try {
+            payload.writeByte(BulkFormat.EDGE_PROPERTY);
+            payload.writeLong(edgeId);
+            payload.writeUTF(key);
+            BulkFormat.writeValue(payload, value);
+            writeRecord(outId);
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to write property to bulk intermediate", e);
+        }
+    }
+
+    // writes the buffered payload as a record of the given vertex
+    private void writeRecord(final long vertexId) throws IOException {
+        DataOutputStream out = partitionFor(vertexId);
+        out.writeLong(vertexId);
+        out.writeInt(payloadBytes.size());
+        payloadBytes.writeTo(out);
+        payloadBytes.reset();
+    }
+
+    private DataOutputStream partitionFor(final long vertexId) throws IOException {
+        int p = BulkFormat.partition(vertexId, partitions.length);
+        DataOutputStream out = partitions[p];
+        if (null == out) {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("could not create directory " + directory);
+            }
+
+            File file = BulkFormat.partitionFile(directory, p, BulkFormat.UNSORTED_SUFFIX);
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), BUFFER_SIZE));
+            partitions[p] = out;
+        }
+
+        return out;
+    }
+
+    private abstract class ExportElement {
+        public <T> T getProperty(final String key) {
+            throw new UnsupportedOperationException();
+        }
+
+        public Set<String> getPropertyKeys() {
+            throw new UnsupportedOperationException();
+        }
+
+        public <T> T removeProperty(final String key) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class ExportVertex extends ExportElement implements Vertex {
+        private final long id;
+
+        private ExportVertex(final long id) {
+            this.id = id;
+        }
+
+        public Object getId() {
+            return id;
+        }
+
+        public void setProperty(final String key,
+                                final Object value) {
+            writeVertexProperty(id, key, value);
+        }
+
+        public Iterable<Edge> getEdges(final Direction direction,
+                                       final String... labels) {
+            throw new UnsupportedOperationException();
+        }
+
+        public Iterable<Vertex> getVertices(final Direction direction,
+                                            final String... labels) {
+            throw new UnsupportedOperationException();
+        }
+
+        public VertexQuery query() {
+            throw new UnsupportedOperationException();
+        }
+
+        public Edge addEdge(final String label,
+                            final Vertex inVertex) {
+            throw new UnsupportedOperationException("edge IDs must be supplied");
+        }
+    }
+
+    private class ExportEdge extends ExportElement implements Edge {
+        private final long id;
+        private final long outId;
+        private final String label;
+
+        private ExportEdge(final long id,
+                           final long outId,
+                           final String label) {
+            this.id = id;
+            this.outId = outId;
+            this.label = label;
+        }
+
+        public Object getId() {
+            return id;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public void setProperty(final String key,
+                                final Object value) {
+            writeEdgeProperty(outId, id, key, value);
+        }
+
+        public Vertex getVertex(final Direction direction) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.tinkerpop.etc.github;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * The binary intermediate format shared by {@link BulkExportGraph} and {@link BulkImporter}.
+ * The intermediate is a directory of partition files, each a sequence of records of the form
+ * <code>[vertex ID : long][payload length : int][kind : byte][...]</code>, where the vertex ID is that of
+ * the vertex a property belongs to, or the out-vertex of an edge.
+ * Partitions are assigned by vertex ID, so that all records of a vertex end up in the same file,
+ * and sorting a file groups them together.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+class BulkFormat {
+    // record kinds
+    static final byte
+            PROPERTY = 0,
+            EDGE = 1,
+            EDGE_PROPERTY = 2;
+
+    // value types; see EventHandler.PROPERTY_CLASSES
+    private static final byte
+            STRING = 0,
+            BOOLEAN = 1,
+            LONG = 2,
+            INTEGER = 3;
+
+    // vertex ID and payload length
+    static final int HEADER_LENGTH = 12;
+
+    static final String
+            UNSORTED_SUFFIX = ".bin",
+            SORTED_SUFFIX = ".sorted",
+            CHECKPOINT_SUFFIX = ".checkpoint";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private BulkFormat() {
+    }
+
+    static File partitionFile(final File directory,
+                              final int partition,
+                              final String suffix) {
+        return new File(directory, String.format("partition-%05d%s", partition, suffix));
+    }
+
+    static int partition(final long vertexId,
+                         final int partitions) {
+        // the low bits of a Titan vertex ID are always zero
+        return (int) ((vertexId >>> 2) % partitions);
+    }
+
+    static void writeValue(final DataOutput out,
+                           final Object value) throws IOException {
+        if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else {
+            throw new IllegalArgumentException("unsupported property value: " + value);
+        }
+    }
+
+    static Object readValue(final DataInput in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case STRING:
+                return readString(in);
+            case BOOLEAN:
+                return in.readBoolean();
+            case LONG:
+                return in.readLong();
+            case INTEGER:
+                return in.readInt();
+            default:
+                throw new IOException("unknown value type: " + type);
+        }
+    }
+
+    // unlike writeUTF, not limited to 64KB; commit messages and comments can be longer
+    static void writeString(final DataOutput out,
+                            final String s) throws IOException {
+        byte[] bytes = s.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(final DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+}
@@ -0,0 +1,492 @@
+package com.tinkerpop.etc.github;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Loads the intermediate written by {@link BulkExportGraph} into a graph in vertex-centric order.
+ * Each partition is first sorted by vertex ID, so that all records of a vertex are adjacent.
+ * Then all vertices are written, each exactly once and with all of its properties merged,
+ * and finally all edges, grouped by out-vertex.
+ * <p/>
+ * An interrupted import can be repeated: writing vertices is idempotent, and each time the edges of a partition are
+ * committed, the last out-vertex they cover is saved to a checkpoint file, so that a repeated import resumes after it.
+ * Each partition is deleted, with its checkpoint, as soon as all of its edges have been committed.
+ * Edges with the same ID are written only once, so events which were exported more than once with deterministic IDs
+ * are not duplicated.  Duplicates are only looked for among the edges of the same out-vertex, which is enough,
+ * as the ID of an edge is derived from that of its out-vertex, and the records of an edge are kept with those of
+ * its out-vertex.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class BulkImporter {
+    private static final Logger LOGGER = Logger.getLogger(BulkImporter.class.getName());
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // the number of vertices to write between commits
+    private static final int COMMIT_INTERVAL = 10000;
+
+    private final File directory;
+    private final int partitions;
+    private final VertexCache vertexCache;
+
+    /**
+     * @param directory   the directory of the intermediate
+     * @param partitions  the number of partition files, as exported
+     * @param vertexCache an optional cache for the in-vertices of edges, most of which are users and repositories.
+     *                    May be null.
+     */
+    public BulkImporter(final File directory,
+                        final int partitions,
+                        final VertexCache vertexCache) {
+        this.directory = directory;
+        this.partitions = partitions;
+        this.vertexCache = vertexCache;
+    }
+
+    /**
+     * Sorts, then imports all partitions into the given graph, deleting each partition once it has been imported
+     */
+    public void importInto(final Graph graph) throws IOException {
+        long startTime = System.currentTimeMillis();
+
+        for (int p = 0; p < partitions; p++) {
+            sortPartition(p);
+        }
+
+        long vertices = 0;
+        for (int p = 0; p < partitions; p++) {
+            vertices += importVertices(graph, p);
+        }
+
+        long edges = 0;
+        for (int p = 0; p < partitions; p++) {
+            edges += importEdges(graph, p);
+        }
+
+        LOGGER.info("imported " + vertices + " vertices and " + edges + " edges in "
+                + (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    /**
+     * Sorts the records of a partition by vertex ID, merging them with any records sorted by an earlier,
+     * interrupted import.  Records of the same vertex keep their relative order, so later property values win.
+     */
+    private void sortPartition(final int partition) throws IOException {
+        File unsorted = BulkFormat.partitionFile(directory, partition, BulkFormat.UNSORTED_SUFFIX);
+        if (!unsorted.exists()) {
+            return;
+        }
+
+        File sorted = BulkFormat.partitionFile(directory, partition, BulkFormat.SORTED_SUFFIX);
+        File checkpoint = BulkFormat.partitionFile(directory, partition, BulkFormat.CHECKPOINT_SUFFIX);
+        if (checkpoint.exists()) {
+            // the checkpoint only holds for the sorted records it was written for, not for those about to be merged
+            if (sorted.exists()) {
+                dropCommittedRecords(sorted, readCheckpoint(checkpoint));
+            }
+            deleteCheckpoint(checkpoint);
+        }
+
+        long length = unsorted.length() + (sorted.exists() ? sorted.length() : 0);
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("partition " + partition + " is too large to sort in memory."
+                    + " Export to more partitions");
+        }
+
+        byte[] data = new byte[(int) length];
+        int offset = sorted.exists() ? readFully(sorted, data, 0) : 0;
+        readFully(unsorted, data, offset);
+
+        List<RecordPosition> positions = new ArrayList<RecordPosition>();
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int position = 0;
+        while (position + BulkFormat.HEADER_LENGTH <= data.length) {
+            int next = position + BulkFormat.HEADER_LENGTH + buffer.getInt(position + 8);
+            if (next > data.length) {
+                break;
+            }
+            positions.add(new RecordPosition(buffer.getLong(position), position, next - position));
+            position = next;
+        }
+        if (position < data.length) {
+            // the export was interrupted in the middle of a record
+            LOGGER.warning("ignoring truncated record at the end of " + unsorted);
+        }
+
+        // a stable sort
+        Collections.sort(positions);
+
+        File tmpFile = new File(sorted.getPath() + ".tmp");
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpFile), BUFFER_SIZE);
+        try {
+            for (RecordPosition r : positions) {
+                out.write(data, r.offset, r.length);
+            }
+        } finally {
+            out.close();
+        }
+
+        replace(sorted, tmpFile);
+        if (!unsorted.delete()) {
+            throw new IOException("failed to delete " + unsorted);
+        }
+    }
+
+    /**
+     * Removes from a sorted partition the records of the vertices whose edges have already been committed.
+     * Until the checkpoint is deleted, a repeated import skips those vertices anyway, so this can be interrupted.
+     */
+    private void dropCommittedRecords(final File sorted,
+                                      final long lastCommitted) throws IOException {
+        File tmpFile = new File(sorted.getPath() + ".tmp");
+        DataInputStream in = open(sorted);
+        try {
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpFile), BUFFER_SIZE);
+            try {
+                byte[] header = new byte[BulkFormat.HEADER_LENGTH];
+                byte[] payload = new byte[256];
+                ByteBuffer buffer = ByteBuffer.wrap(header);
+                while (true) {
+                    try {
+                        in.readFully(header);
+                    } catch (EOFException e) {
+                        break;
+                    }
+
+                    int length = buffer.getInt(8);
+                    if (length > payload.length) {
+                        payload = new byte[Math.max(length, payload.length * 2)];
+                    }
+                    in.readFully(payload, 0, length);
+
+                    if (buffer.getLong(0) > lastCommitted) {
+                        out.write(header);
+                        out.write(payload, 0, length);
+                    }
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+
+        replace(sorted, tmpFile);
+    }
+
+    // renames over the file where the platform allows it, which is atomic
+    private static void replace(final File file,
+                                final File replacement) throws IOException {
+        if (!replacement.renameTo(file)
+                && ((file.exists() && !file.delete()) || !replacement.renameTo(file))) {
+            throw new IOException("failed to replace " + file);
+        }
+    }
+
+    private long importVertices(final Graph graph,
+                                final int partition) throws IOException {
+        File file = BulkFormat.partitionFile(directory, partition, BulkFormat.SORTED_SUFFIX);
+        if (!file.exists()) {
+            return 0;
+        }
+
+        long count = 0;
+        DataInputStream in = open(file);
+        try {
+            Record r = new Record();
+            Map<String, Object> properties = new LinkedHashMap<String, Object>();
+            long currentId = -1;
+            while (readRecord(in, r, file)) {
+                if (r.vertexId != currentId) {
+                    if (-1 != currentId) {
+                        writeVertex(graph, currentId, properties);
+                        if (0 == ++count % COMMIT_INTERVAL) {
+                            commit(graph);
+                        }
+                    }
+                    currentId = r.vertexId;
+                    properties.clear();
+                }
+
+                if (BulkFormat.PROPERTY == r.kind) {
+                    properties.put(r.key, r.value);
+                }
+            }
+
+            if (-1 != currentId) {
+                writeVertex(graph, currentId, properties);
+                count++;
+            }
+        } finally {
+            in.close();
+        }
+
+        commit(graph);
+        return count;
+    }
+
+    private long importEdges(final Graph graph,
+                             final int partition) throws IOException {
+        File file = BulkFormat.partitionFile(directory, partition, BulkFormat.SORTED_SUFFIX);
+        File checkpoint = BulkFormat.partitionFile(directory, partition, BulkFormat.CHECKPOINT_SUFFIX);
+        if (!file.exists()) {
+            // left behind if an import was interrupted just after deleting the partition
+            deleteCheckpoint(checkpoint);
+            return 0;
+        }
+
+        // vertices are sorted by ID, so those up to the checkpoint are exactly those whose edges are committed
+        boolean resuming = checkpoint.exists();
+        long lastCommitted = resuming ? readCheckpoint(checkpoint) : 0;
+        if (resuming) {
+            LOGGER.info("resuming import of " + file + " after vertex " + lastCommitted);
+        }
+
+        long count = 0;
+        DataInputStream in = open(file);
+        try {
+            Record r = new Record();
+            // an edge's records are all kept with its out-vertex, so duplicates need only be looked for there
+            Set<Long> edgeIds = new HashSet<Long>();
+            Map<Long, Edge> edges = new HashMap<Long, Edge>();
+            long currentId = -1;
+            Vertex outVertex = null;
+            long vertices = 0;
+            while (readRecord(in, r, file)) {
+                if (resuming && r.vertexId <= lastCommitted) {
+                    continue;
+                }
+
+                if (r.vertexId != currentId) {
+                    // commit between vertices, so that the checkpoint covers all edges of the vertices before it
+                    if (-1 != currentId && 0 == ++vertices % COMMIT_INTERVAL) {
+                        commit(graph);
+                        writeCheckpoint(checkpoint, currentId);
+                    }
+
+                    currentId = r.vertexId;
+                    outVertex = null;
+                    edgeIds.clear();
+                    edges.clear();
+                }
+
+                if (BulkFormat.EDGE == r.kind) {
+                    if (!edgeIds.add(r.edgeId)) {
+                        continue;
+                    }
+
+                    if (null == outVertex) {
+                        outVertex = lookupVertex(graph, currentId);
+                    }
+                    Vertex inVertex = lookupVertex(graph, r.inId);
+                    if (null == outVertex || null == inVertex) {
+                        LOGGER.warning("missing vertex for edge " + r.edgeId + " (" + currentId + " -> " + r.inId + ")");
+                        continue;
+                    }
+
+                    edges.put(r.edgeId, graph.addEdge(r.edgeId, outVertex, inVertex, r.label));
+                    count++;
+                } else if (BulkFormat.EDGE_PROPERTY == r.kind) {
+                    Edge e = edges.get(r.edgeId);
+                    if (null != e) {
+                        e.setProperty(r.key, r.value);
+                    }
+                }
+            }
+        } finally {
+            in.close();
+        }
+
+        // the partition is complete only once its edges are committed
+        commit(graph);
+        if (!file.delete()) {
+            throw new IOException("failed to delete " + file);
+        }
+        deleteCheckpoint(checkpoint);
+
+        return count;
+    }
+
+    private static long readCheckpoint(final File checkpoint) throws IOException {
+        DataInputStream in = open(checkpoint);
+        try {
+            return in.readLong();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void writeCheckpoint(final File checkpoint,
+                                        final long lastCommitted) throws IOException {
+        File tmpFile = new File(checkpoint.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(tmpFile));
+        try {
+            out.writeLong(lastCommitted);
+        } finally {
+            out.close();
+        }
+
+        replace(checkpoint, tmpFile);
+    }
+
+    private static void deleteCheckpoint(final File checkpoint) throws IOException {
+        if (checkpoint.exists() && !checkpoint.delete()) {
+            throw new IOException("failed to delete " + checkpoint);
+        }
+    }
+
+    private void writeVertex(final Graph graph,
+                             final long id,
+                             final Map<String, Object> properties) {
+        Vertex v = graph.getVertex(id);
+        if (null == v) {
+            v = graph.addVertex(id);
+        }
+
+        for (Map.Entry<String, Object> e : properties.entrySet()) {
+            try {
+                v.setProperty(e.getKey(), e.getValue());
+            } catch (IllegalArgumentException ex) {
+                // occasionally, Titan will reject certain property values
+                LOGGER.warning("failed to set property " + e.getKey() + " on vertex " + id + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    private Vertex lookupVertex(final Graph graph,
+                                final long id) {
+        Vertex v;
+        if (null != vertexCache) {
+            v = vertexCache.get(id);
+            if (null != v) {
+                return v;
+            }
+        }
+
+        v = graph.getVertex(id);
+        if (null != v && null != vertexCache) {
+            vertexCache.put(id, v);
+        }
+
+        return v;
+    }
+
+    private void commit(final Graph graph) {
+        if (graph instanceof TransactionalGraph) {
+            ((TransactionalGraph) graph).commit();
+        }
+
+        // cached vertices belong to the committed transaction
+        if (null != vertexCache) {
+            vertexCache.clear();
+        }
+    }
+
+    private static DataInputStream open(final File file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+    }
+
+    private static int readFully(final File file,
+                                 final byte[] data,
+                                 final int offset) throws IOException {
+        int length = (int) file.length();
+        InputStream in = new FileInputStream(file);
+        try {
+            new DataInputStream(in).readFully(data, offset, length);
+        } finally {
+            in.close();
+        }
+
+        return offset + length;
+    }
+
+    /**
+     * @return whether a record was read
+     */
+    private static boolean readRecord(final DataInputStream in,
+                                      final Record r,
+                                      final File file) throws IOException {
+        try {
+            r.vertexId = in.readLong();
+        } catch (EOFException e) {
+            return false;
+        }
+
+        in.readInt();
+        r.kind = in.readByte();
+        switch (r.kind) {
+            case BulkFormat.PROPERTY:
+                r.key = in.readUTF();
+                r.value = BulkFormat.readValue(in);
+                break;
+            case BulkFormat.EDGE:
+                r.edgeId = in.readLong();
+                r.inId = in.readLong();
+                r.label = in.readUTF();
+                break;
+            case BulkFormat.EDGE_PROPERTY:
+                r.edgeId = in.readLong();
+                r.key = in.readUTF();
+                r.value = BulkFormat.readValue(in);
+                break;
+            default:
+                throw new IOException("unknown record kind " + r.kind + " in " + file);
+        }
+
+        return true;
+    }
+
+    private static class Record {
+        private long vertexId;
+        private byte kind;
+        private long edgeId;
+        private long inId;
+        private String label;
+        private String key;
+        private Object value;
+    }
+
+    private static class RecordPosition implements Comparable<RecordPosition> {
+        private final long vertexId;
+        private final int offset;
+        private final int length;
+
+        private RecordPosition(final long vertexId,
+                               final int offset,
+                               final int length) {
+            this.vertexId = vertexId;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public int compareTo(final RecordPosition other) {
+            return vertexId < other.vertexId ? -1 : vertexId > other.vertexId ? 1 : 0;
+        }
+    }
+}
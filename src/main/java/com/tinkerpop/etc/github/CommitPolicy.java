@@ -0,0 +1,52 @@
+package com.tinkerpop.etc.github;
+
+/**
+ * Decides when to commit during a load, bounding the size of each transaction by a number of events,
+ * an amount of time, or both.
+ * Either limit may be zero, meaning no limit.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class CommitPolicy {
+    private final long maxEvents;
+    private final long maxMillis;
+
+    private long eventsSinceCommit;
+    private long lastCommitTime;
+
+    /**
+     * @param maxEvents the maximum number of events per transaction, or 0 for no limit
+     * @param maxMillis the maximum lifetime of a transaction in milliseconds, or 0 for no limit
+     */
+    public CommitPolicy(final long maxEvents,
+                        final long maxMillis) {
+        if (maxEvents < 0 || maxMillis < 0) {
+            throw new IllegalArgumentException("commit limits must not be negative");
+        }
+
+        this.maxEvents = maxEvents;
+        this.maxMillis = maxMillis;
+
+        committed();
+    }
+
+    /**
+     * Records an event written in the current transaction
+     *
+     * @return whether the transaction should now be committed
+     */
+    public boolean eventHandled() {
+        eventsSinceCommit++;
+
+        return (maxEvents > 0 && eventsSinceCommit >= maxEvents)
+                || (maxMillis > 0 && System.currentTimeMillis() - lastCommitTime >= maxMillis);
+    }
+
+    /**
+     * Records that the current transaction has been committed, whether or not at the policy's request
+     */
+    public void committed() {
+        eventsSinceCommit = 0;
+        lastCommitTime = System.currentTimeMillis();
+    }
+}
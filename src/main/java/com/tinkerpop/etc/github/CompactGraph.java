@@ -0,0 +1,703 @@
+package com.tinkerpop.etc.github;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Features;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.VertexQuery;
+import com.tinkerpop.blueprints.util.DefaultGraphQuery;
+import com.tinkerpop.blueprints.util.DefaultVertexQuery;
+import com.tinkerpop.blueprints.util.ElementHelper;
+import com.tinkerpop.blueprints.util.ExceptionFactory;
+import com.tinkerpop.blueprints.util.StringFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A compact, in-memory graph for analyzing large amounts of archive data in a single JVM.
+ * Unlike TinkerGraph, it keeps no object per vertex, edge or property:
+ * elements are slots in parallel primitive arrays, indexed by long ID,
+ * properties are stored in typed columns (see {@link PropertyTable}),
+ * and each vertex has a linked list of edges per label and direction, newest first.
+ * The Vertex and Edge objects it returns are lightweight views, created on demand.
+ * <p/>
+ * IDs must be numeric; IDs are assigned automatically if none are supplied.
+ * This class is not thread-safe.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class CompactGraph implements Graph {
+    private static final int NONE = -1;
+
+    private static final Features FEATURES = new Features();
+
+    static {
+        FEATURES.supportsDuplicateEdges = true;
+        FEATURES.supportsSelfLoops = true;
+        FEATURES.isPersistent = false;
+        FEATURES.supportsVertexIteration = true;
+        FEATURES.supportsEdgeIteration = true;
+        FEATURES.supportsVertexIndex = false;
+        FEATURES.supportsEdgeIndex = false;
+        FEATURES.ignoresSuppliedIds = false;
+        FEATURES.supportsTransactions = false;
+        FEATURES.supportsIndices = false;
+        FEATURES.supportsKeyIndices = false;
+        FEATURES.supportsVertexKeyIndex = false;
+        FEATURES.supportsEdgeKeyIndex = false;
+        FEATURES.supportsEdgeRetrieval = true;
+        FEATURES.supportsVertexProperties = true;
+        FEATURES.supportsEdgeProperties = true;
+        FEATURES.supportsThreadedTransactions = false;
+        FEATURES.supportsStringProperty = true;
+        FEATURES.supportsBooleanProperty = true;
+        FEATURES.supportsLongProperty = true;
+        FEATURES.supportsIntegerProperty = true;
+        FEATURES.supportsDoubleProperty = true;
+        FEATURES.supportsFloatProperty = true;
+        FEATURES.supportsSerializableObjectProperty = true;
+    }
+
+    // vertices
+    private long[] vertexIds = new long[0];
+    private final BitSet liveVertices = new BitSet();
+    private final LongIntMap vertexSlots = new LongIntMap(1024);
+    private final PropertyTable vertexProperties = new PropertyTable();
+    private int vertexSlotCount;
+    private long nextVertexId = 1;
+
+    // edges
+    private long[] edgeIds = new long[0];
+    private int[] outVertices = new int[0];
+    private int[] inVertices = new int[0];
+    private int[] edgeLabels = new int[0];
+    private int[] nextOut = new int[0];
+    private int[] nextIn = new int[0];
+    private final BitSet liveEdges = new BitSet();
+    private final LongIntMap edgeSlots = new LongIntMap(1024);
+    private final PropertyTable edgeProperties = new PropertyTable();
+    private int edgeSlotCount;
+    private long nextEdgeId = 1;
+
+    // labels, with the schema's labels first.  Heads of adjacency lists are indexed by label, then by vertex slot
+    private final List<String> labels = new ArrayList<String>();
+    private final Map<String, Integer> labelIndices = new HashMap<String, Integer>();
+    private int[][] outHeads = new int[0][];
+    private int[][] inHeads = new int[0][];
+
+    public CompactGraph() {
+        for (GithubSchema.Label l : GithubSchema.Label.values()) {
+            labelIndex(l.name());
+        }
+    }
+
+    /**
+     * Fixes the datatype of a vertex property key in advance.  Otherwise, the type is that of the first value.
+     */
+    public void declareVertexProperty(final String key,
+                                      final Class type) {
+        vertexProperties.declare(key, type);
+    }
+
+    /**
+     * Fixes the datatype of an edge property key in advance.  Otherwise, the type is that of the first value.
+     */
+    public void declareEdgeProperty(final String key,
+                                    final Class type) {
+        edgeProperties.declare(key, type);
+    }
+
+    public long getVertexCount() {
+        return vertexSlots.size();
+    }
+
+    public long getEdgeCount() {
+        return edgeSlots.size();
+    }
+
+    public Features getFeatures() {
+        return FEATURES;
+    }
+
+    public Vertex addVertex(final Object id) {
+        long longId;
+        if (null == id) {
+            while (NONE != vertexSlots.get(nextVertexId)) {
+                nextVertexId++;
+            }
+            longId = nextVertexId++;
+        } else {
+            longId = toLongId(id);
+            if (NONE != vertexSlots.get(longId)) {
+                throw ExceptionFactory.vertexWithIdAlreadyExists(id);
+            }
+        }
+
+        int slot = vertexSlotCount++;
+        if (slot >= vertexIds.length) {
+            growVertices(slot);
+        }
+        vertexIds[slot] = longId;
+        liveVertices.set(slot);
+        vertexSlots.put(longId, slot);
+
+        return new CompactVertex(slot);
+    }
+
+    public Vertex getVertex(final Object id) {
+        if (null == id) {
+            throw ExceptionFactory.vertexIdCanNotBeNull();
+        }
+
+        Long longId = parseId(id);
+        if (null == longId) {
+            return null;
+        }
+
+        int slot = vertexSlots.get(longId);
+        return NONE == slot ? null : new CompactVertex(slot);
+    }
+
+    public void removeVertex(final Vertex vertex) {
+        int slot = ((CompactVertex) vertex).slot;
+        checkVertex(slot);
+
+        for (int label = 0; label < labels.size(); label++) {
+            while (NONE != outHeads[label][slot]) {
+                removeEdge(outHeads[label][slot]);
+            }
+            while (NONE != inHeads[label][slot]) {
+                removeEdge(inHeads[label][slot]);
+            }
+        }
+
+        vertexProperties.removeAll(slot);
+        vertexSlots.remove(vertexIds[slot]);
+        liveVertices.clear(slot);
+    }
+
+    public Iterable<Vertex> getVertices() {
+        return new Iterable<Vertex>() {
+            public Iterator<Vertex> iterator() {
+                return new SlotIterator<Vertex>(liveVertices, null, null) {
+                    protected Vertex element(final int slot) {
+                        return new CompactVertex(slot);
+                    }
+                };
+            }
+        };
+    }
+
+    public Iterable<Vertex> getVertices(final String key,
+                                        final Object value) {
+        return new Iterable<Vertex>() {
+            public Iterator<Vertex> iterator() {
+                return new SlotIterator<Vertex>(liveVertices, vertexProperties.getColumn(key), value) {
+                    protected Vertex element(final int slot) {
+                        return new CompactVertex(slot);
+                    }
+                };
+            }
+        };
+    }
+
+    public Edge addEdge(final Object id,
+                        final Vertex outVertex,
+                        final Vertex inVertex,
+                        final String label) {
+        if (null == label) {
+            throw ExceptionFactory.edgeLabelCanNotBeNull();
+        }
+
+        long longId;
+        if (null == id) {
+            while (NONE != edgeSlots.get(nextEdgeId)) {
+                nextEdgeId++;
+            }
+            longId = nextEdgeId++;
+        } else {
+            longId = toLongId(id);
+            if (NONE != edgeSlots.get(longId)) {
+                throw ExceptionFactory.edgeWithIdAlreadyExist(id);
+            }
+        }
+
+        int out = ((CompactVertex) outVertex).slot;
+        int in = ((CompactVertex) inVertex).slot;
+        checkVertex(out);
+        checkVertex(in);
+        int l = labelIndex(label);
+
+        int slot = edgeSlotCount++;
+        if (slot >= edgeIds.length) {
+            growEdges(slot);
+        }
+        edgeIds[slot] = longId;
+        outVertices[slot] = out;
+        inVertices[slot] = in;
+        edgeLabels[slot] = l;
+
+        // prepend, so that the most recently added edges come first
+        nextOut[slot] = outHeads[l][out];
+        outHeads[l][out] = slot;
+        nextIn[slot] = inHeads[l][in];
+        inHeads[l][in] = slot;
+
+        liveEdges.set(slot);
+        edgeSlots.put(longId, slot);
+
+        return new CompactEdge(slot);
+    }
+
+    public Edge getEdge(final Object id) {
+        if (null == id) {
+            throw ExceptionFactory.edgeIdCanNotBeNull();
+        }
+
+        Long longId = parseId(id);
+        if (null == longId) {
+            return null;
+        }
+
+        int slot = edgeSlots.get(longId);
+        return NONE == slot ? null : new CompactEdge(slot);
+    }
+
+    public void removeEdge(final Edge edge) {
+        int slot = ((CompactEdge) edge).slot;
+        checkEdge(slot);
+        removeEdge(slot);
+    }
+
+    public Iterable<Edge> getEdges() {
+        return new Iterable<Edge>() {
+            public Iterator<Edge> iterator() {
+                return new SlotIterator<Edge>(liveEdges, null, null) {
+                    protected Edge element(final int slot) {
+                        return new CompactEdge(slot);
+                    }
+                };
+            }
+        };
+    }
+
+    public Iterable<Edge> getEdges(final String key,
+                                   final Object value) {
+        return new Iterable<Edge>() {
+            public Iterator<Edge> iterator() {
+                return new SlotIterator<Edge>(liveEdges, edgeProperties.getColumn(key), value) {
+                    protected Edge element(final int slot) {
+                        return new CompactEdge(slot);
+                    }
+                };
+            }
+        };
+    }
+
+    public GraphQuery query() {
+        return new DefaultGraphQuery(this);
+    }
+
+    public void shutdown() {
+        // nothing to do
+    }
+
+    public String toString() {
+        return StringFactory.graphString(this, "vertices:" + getVertexCount() + " edges:" + getEdgeCount());
+    }
+
+    private void removeEdge(final int slot) {
+        int l = edgeLabels[slot];
+        outHeads[l][outVertices[slot]] = unlink(outHeads[l][outVertices[slot]], slot, nextOut);
+        inHeads[l][inVertices[slot]] = unlink(inHeads[l][inVertices[slot]], slot, nextIn);
+
+        edgeProperties.removeAll(slot);
+        edgeSlots.remove(edgeIds[slot]);
+        liveEdges.clear(slot);
+    }
+
+    // removes an edge from a singly-linked adjacency list, returning the new head
+    private static int unlink(final int head,
+                              final int slot,
+                              final int[] next) {
+        if (head == slot) {
+            return next[slot];
+        }
+
+        for (int e = head; NONE != e; e = next[e]) {
+            if (next[e] == slot) {
+                next[e] = next[slot];
+                break;
+            }
+        }
+        return head;
+    }
+
+    private int labelIndex(final String label) {
+        Integer index = labelIndices.get(label);
+        if (null == index) {
+            index = labels.size();
+            labels.add(label);
+            labelIndices.put(label, index);
+
+            outHeads = Arrays.copyOf(outHeads, index + 1);
+            inHeads = Arrays.copyOf(inHeads, index + 1);
+            outHeads[index] = emptyHeads(vertexIds.length);
+            inHeads[index] = emptyHeads(vertexIds.length);
+        }
+
+        return index;
+    }
+
+    private void growVertices(final int slot) {
+        int capacity = Math.max(slot + 1, vertexIds.length + (vertexIds.length >> 1) + 16);
+        vertexIds = Arrays.copyOf(vertexIds, capacity);
+        for (int l = 0; l < labels.size(); l++) {
+            outHeads[l] = growHeads(outHeads[l], capacity);
+            inHeads[l] = growHeads(inHeads[l], capacity);
+        }
+    }
+
+    private void growEdges(final int slot) {
+        int capacity = Math.max(slot + 1, edgeIds.length + (edgeIds.length >> 1) + 16);
+        edgeIds = Arrays.copyOf(edgeIds, capacity);
+        outVertices = Arrays.copyOf(outVertices, capacity);
+        inVertices = Arrays.copyOf(inVertices, capacity);
+        edgeLabels = Arrays.copyOf(edgeLabels, capacity);
+        nextOut = Arrays.copyOf(nextOut, capacity);
+        nextIn = Arrays.copyOf(nextIn, capacity);
+    }
+
+    private static int[] emptyHeads(final int capacity) {
+        int[] heads = new int[capacity];
+        Arrays.fill(heads, NONE);
+        return heads;
+    }
+
+    private static int[] growHeads(final int[] heads,
+                                   final int capacity) {
+        int[] grown = Arrays.copyOf(heads, capacity);
+        Arrays.fill(grown, heads.length, capacity, NONE);
+        return grown;
+    }
+
+    private void checkVertex(final int slot) {
+        if (!liveVertices.get(slot)) {
+            throw new IllegalStateException("vertex has been removed");
+        }
+    }
+
+    private void checkEdge(final int slot) {
+        if (!liveEdges.get(slot)) {
+            throw new IllegalStateException("edge has been removed");
+        }
+    }
+
+    private static long toLongId(final Object id) {
+        Long longId = parseId(id);
+        if (null == longId) {
+            throw new IllegalArgumentException("IDs must be numeric: " + id);
+        }
+
+        return longId;
+    }
+
+    private static Long parseId(final Object id) {
+        if (id instanceof Long) {
+            return (Long) id;
+        } else if (id instanceof Number) {
+            return ((Number) id).longValue();
+        } else if (id instanceof String) {
+            try {
+                return Long.valueOf((String) id);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+    }
+
+    private abstract class CompactElement implements Element {
+        protected final int slot;
+
+        private CompactElement(final int slot) {
+            this.slot = slot;
+        }
+
+        protected abstract PropertyTable properties();
+
+        public <T> T getProperty(final String key) {
+            return (T) properties().get(slot, key);
+        }
+
+        public Set<String> getPropertyKeys() {
+            return properties().keysOf(slot);
+        }
+
+        public void setProperty(final String key,
+                                final Object value) {
+            ElementHelper.validateProperty(this, key, value);
+            properties().set(slot, key, value);
+        }
+
+        public <T> T removeProperty(final String key) {
+            return (T) properties().remove(slot, key);
+        }
+
+        public int hashCode() {
+            return getId().hashCode();
+        }
+
+        public boolean equals(final Object other) {
+            return ElementHelper.areEqual(this, other);
+        }
+    }
+
+    private class CompactVertex extends CompactElement implements Vertex {
+        private CompactVertex(final int slot) {
+            super(slot);
+        }
+
+        protected PropertyTable properties() {
+            return vertexProperties;
+        }
+
+        public Object getId() {
+            return vertexIds[slot];
+        }
+
+        public Iterable<Edge> getEdges(final Direction direction,
+                                       final String... labels) {
+            return new Iterable<Edge>() {
+                public Iterator<Edge> iterator() {
+                    return new AdjacencyIterator<Edge>(slot, direction, labels) {
+                        protected Edge next(final int edge,
+                                            final boolean out) {
+                            return new CompactEdge(edge);
+                        }
+                    };
+                }
+            };
+        }
+
+        public Iterable<Vertex> getVertices(final Direction direction,
+                                            final String... labels) {
+            return new Iterable<Vertex>() {
+                public Iterator<Vertex> iterator() {
+                    return new AdjacencyIterator<Vertex>(slot, direction, labels) {
+                        protected Vertex next(final int edge,
+                                              final boolean out) {
+                            return new CompactVertex(out ? inVertices[edge] : outVertices[edge]);
+                        }
+                    };
+                }
+            };
+        }
+
+        public VertexQuery query() {
+            return new DefaultVertexQuery(this);
+        }
+
+        public Edge addEdge(final String label,
+                            final Vertex inVertex) {
+            return CompactGraph.this.addEdge(null, this, inVertex, label);
+        }
+
+        public void remove() {
+            removeVertex(this);
+        }
+
+        public String toString() {
+            return StringFactory.vertexString(this);
+        }
+    }
+
+    private class CompactEdge extends CompactElement implements Edge {
+        private CompactEdge(final int slot) {
+            super(slot);
+        }
+
+        protected PropertyTable properties() {
+            return edgeProperties;
+        }
+
+        public Object getId() {
+            return edgeIds[slot];
+        }
+
+        public Vertex getVertex(final Direction direction) throws IllegalArgumentException {
+            if (Direction.OUT == direction) {
+                return new CompactVertex(outVertices[slot]);
+            } else if (Direction.IN == direction) {
+                return new CompactVertex(inVertices[slot]);
+            } else {
+                throw ExceptionFactory.bothIsNotSupported();
+            }
+        }
+
+        public String getLabel() {
+            return labels.get(edgeLabels[slot]);
+        }
+
+        public void remove() {
+            removeEdge(this);
+        }
+
+        public String toString() {
+            return StringFactory.edgeString(this);
+        }
+    }
+
+    /**
+     * Iterates over live element slots, optionally only those with a given property value
+     */
+    private abstract static class SlotIterator<T> implements Iterator<T> {
+        private final BitSet live;
+        private final PropertyTable.Column column;
+        private final Object value;
+        private final boolean filtered;
+        private int next;
+
+        private SlotIterator(final BitSet live,
+                             final PropertyTable.Column column,
+                             final Object value) {
+            this.live = live;
+            this.column = column;
+            this.value = value;
+            filtered = null != value;
+            next = advance(0);
+        }
+
+        protected abstract T element(int slot);
+
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        public T next() {
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+
+            int slot = next;
+            next = advance(slot + 1);
+            return element(slot);
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private int advance(final int from) {
+            if (filtered && null == column) {
+                return NONE;
+            }
+
+            for (int i = live.nextSetBit(from); i >= 0; i = live.nextSetBit(i + 1)) {
+                if (!filtered || value.equals(column.get(i))) {
+                    return i;
+                }
+            }
+            return NONE;
+        }
+    }
+
+    /**
+     * Iterates over the edges of a vertex, one adjacency list at a time
+     */
+    private abstract class AdjacencyIterator<T> implements Iterator<T> {
+        private final int vertex;
+        private final int[] labelList;
+        private final boolean includeOut, includeIn;
+
+        // position: the current list, and the next edge in it
+        private int labelPosition = 0;
+        private boolean inPhase;
+        private int nextEdge = NONE;
+
+        private AdjacencyIterator(final int vertex,
+                                  final Direction direction,
+                                  final String... labelNames) {
+            this.vertex = vertex;
+            includeOut = Direction.IN != direction;
+            includeIn = Direction.OUT != direction;
+
+            if (0 == labelNames.length) {
+                labelList = new int[labels.size()];
+                for (int i = 0; i < labelList.length; i++) {
+                    labelList[i] = i;
+                }
+            } else {
+                int[] l = new int[labelNames.length];
+                int n = 0;
+                for (String name : labelNames) {
+                    Integer index = labelIndices.get(name);
+                    if (null != index) {
+                        l[n++] = index;
+                    }
+                }
+                labelList = Arrays.copyOf(l, n);
+            }
+
+            inPhase = !includeOut;
+            startList();
+            advance();
+        }
+
+        protected abstract T next(int edge, boolean out);
+
+        public boolean hasNext() {
+            return NONE != nextEdge;
+        }
+
+        public T next() {
+            if (NONE == nextEdge) {
+                throw new NoSuchElementException();
+            }
+
+            int edge = nextEdge;
+            boolean out = !inPhase;
+            nextEdge = inPhase ? nextIn[edge] : nextOut[edge];
+            advance();
+            return next(edge, out);
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void startList() {
+            if (labelPosition < labelList.length) {
+                int l = labelList[labelPosition];
+                nextEdge = inPhase ? inHeads[l][vertex] : outHeads[l][vertex];
+            } else {
+                nextEdge = NONE;
+            }
+        }
+
+        // moves on to the next non-empty list if the current one is exhausted
+        private void advance() {
+            while (NONE == nextEdge && labelPosition < labelList.length) {
+                if (!inPhase && includeIn) {
+                    inPhase = true;
+                } else {
+                    labelPosition++;
+                    inPhase = !includeOut;
+                }
+                startList();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.tinkerpop.etc.github;
+
+/**
+ * An approximate count of the edges written to each vertex, in a fixed amount of memory however many vertices there
+ * are: a count-min sketch with conservative update, so that counts may be overestimated, but never underestimated.
+ * With a width well above the number of supernodes, overestimates of ordinary vertices are small.
+ * This class is not thread-safe.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class DegreeSketch {
+    private static final int DEPTH = 4;
+
+    private final int[] counts;
+    private final int width;
+    private final int mask;
+
+    private final int[] slots = new int[DEPTH];
+
+    /**
+     * @param width the number of counters in each of the rows of the sketch, rounded up to a power of two
+     */
+    public DegreeSketch(final int width) {
+        if (width < 1) {
+            throw new IllegalArgumentException("width must be positive");
+        }
+
+        this.width = Integer.highestOneBit(width * 2 - 1);
+        counts = new int[DEPTH * this.width];
+        mask = this.width - 1;
+    }
+
+    /**
+     * Counts an edge of the given vertex
+     *
+     * @return the estimated number of edges of the vertex, including this one
+     */
+    public int add(final long vertexId) {
+        int min = findSlots(vertexId);
+        if (Integer.MAX_VALUE == min) {
+            return min;
+        }
+
+        // conservative update: raise only the counters which are below the new estimate
+        int count = min + 1;
+        for (int slot : slots) {
+            if (counts[slot] < count) {
+                counts[slot] = count;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * @return the estimated number of edges of the given vertex
+     */
+    public int estimate(final long vertexId) {
+        return findSlots(vertexId);
+    }
+
+    // finds a counter in each row, using two halves of a single hash, and returns the smallest count
+    private int findSlots(final long vertexId) {
+        long hash = mix(vertexId);
+        int h1 = (int) hash, h2 = (int) (hash >>> 32);
+
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            int slot = i * width + ((h1 + i * h2) & mask);
+            slots[i] = slot;
+            min = Math.min(min, counts[slot]);
+        }
+
+        return min;
+    }
+
+    // the finalizer of MurmurHash3
+    private static long mix(final long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
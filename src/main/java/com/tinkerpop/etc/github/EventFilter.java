@@ -0,0 +1,229 @@
+package com.tinkerpop.etc.github;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Selects the events to be loaded, by event type, by repository and by time, and the properties to be kept
+ * (a projection), so that targeted loads need not bind or write the events and properties they will not use.
+ * Events are decided on from the raw JSON, before they are deserialized; see {@link #accepts(JsonParser)}.
+ * <p/>
+ * Each criterion is optional. An event without a repository never matches a repository pattern.
+ * The projection does not affect the IDs, types and edges of vertices, only their other properties.
+ * This class is thread-safe.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class EventFilter {
+    private final Set<String> types;
+    private final Pattern repositories;
+    private final long minTime;
+    private final long maxTime;
+    private final Set<String> propertyKeys;
+
+    private final AtomicLong
+            accepted = new AtomicLong(),
+            rejected = new AtomicLong();
+
+    /**
+     * @param types        the names of the event types to load, or null for all types
+     * @param repositories a pattern for the "owner/name" of the repositories whose events are to be loaded,
+     *                     or null for events of any (or no) repository
+     * @param minTime      the earliest creation time of an event to load, in milliseconds since the epoch
+     * @param maxTime      the creation time, in milliseconds since the epoch, before which events are loaded
+     * @param propertyKeys the keys of the properties to write, or null for all properties.
+     *                     Keys may be given as in the JSON, e.g. "id" rather than "id_".
+     */
+    public EventFilter(final Set<String> types,
+                       final Pattern repositories,
+                       final long minTime,
+                       final long maxTime,
+                       final Set<String> propertyKeys) {
+        if (null != types) {
+            for (String type : types) {
+                try {
+                    GithubSchema.EventType.valueOf(type);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("no such event type: " + type);
+                }
+            }
+        }
+
+        if (minTime >= maxTime) {
+            throw new IllegalArgumentException("empty time window");
+        }
+
+        this.types = types;
+        this.repositories = repositories;
+        this.minTime = minTime;
+        this.maxTime = maxTime;
+
+        if (null == propertyKeys) {
+            this.propertyKeys = null;
+        } else {
+            this.propertyKeys = new HashSet<String>();
+            for (String key : propertyKeys) {
+                this.propertyKeys.add(EventHandler.fixPropertyKey(key));
+            }
+        }
+    }
+
+    /**
+     * @return whether this filter selects events, as opposed to only projecting their properties
+     */
+    public boolean selectsEvents() {
+        return null != types || null != repositories || Long.MIN_VALUE != minTime || Long.MAX_VALUE != maxTime;
+    }
+
+    public boolean acceptsType(final String type) {
+        return null == types || (null != type && types.contains(type));
+    }
+
+    /**
+     * @param createdAt the created_at timestamp of an event, in either of the archive's formats
+     */
+    public boolean acceptsTime(final String createdAt) {
+        if (Long.MIN_VALUE == minTime && Long.MAX_VALUE == maxTime) {
+            return true;
+        } else if (null == createdAt) {
+            return false;
+        }
+
+        long time = TimestampParser.parse(createdAt);
+        return time >= minTime && time < maxTime;
+    }
+
+    public boolean acceptsRepository(final Object owner,
+                                     final Object name) {
+        return null == repositories
+                || (null != owner && null != name && repositories.matcher(owner + "/" + name).matches());
+    }
+
+    /**
+     * Decides on an event, given its type, creation time and repository
+     *
+     * @return whether the event is to be loaded
+     */
+    public boolean accepts(final String type,
+                           final String createdAt,
+                           final Object owner,
+                           final Object name) {
+        if (acceptsType(type) && acceptsTime(createdAt) && acceptsRepository(owner, name)) {
+            accepted.incrementAndGet();
+            return true;
+        } else {
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Decides on a single JSON event without binding it, reading only the type, creation time and repository.
+     * Reading stops as soon as the event is known to be rejected, or once every criterion of this filter has been
+     * decided, so the parser may be left anywhere within the event.
+     *
+     * @param parser a parser positioned before the start of the event
+     * @return whether the event is to be loaded
+     */
+    public boolean accepts(final JsonParser parser) throws IOException {
+        if (JsonToken.START_OBJECT != parser.nextToken()) {
+            // leave malformed events for the deserializer to report
+            return true;
+        }
+
+        // a criterion which is not used is decided from the start
+        boolean typeDecided = null == types,
+                timeDecided = Long.MIN_VALUE == minTime && Long.MAX_VALUE == maxTime,
+                repositoryDecided = null == repositories;
+
+        String type = null, createdAt = null, owner = null, name = null;
+        while (!(typeDecided && timeDecided && repositoryDecided) && JsonToken.FIELD_NAME == parser.nextToken()) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if (field.equals("type") && JsonToken.VALUE_STRING == token) {
+                type = parser.getText();
+                if (!acceptsType(type)) {
+                    break;
+                }
+                typeDecided = true;
+            } else if (field.equals("created_at") && JsonToken.VALUE_STRING == token) {
+                createdAt = parser.getText();
+                if (!acceptsTime(createdAt)) {
+                    break;
+                }
+                timeDecided = true;
+            } else if (field.equals("repository") && JsonToken.START_OBJECT == token && null != repositories) {
+                while (JsonToken.FIELD_NAME == parser.nextToken()) {
+                    String f = parser.getCurrentName();
+                    JsonToken t = parser.nextToken();
+                    if (f.equals("owner") && JsonToken.VALUE_STRING == t) {
+                        owner = parser.getText();
+                    } else if (f.equals("name") && JsonToken.VALUE_STRING == t) {
+                        name = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                if (!acceptsRepository(owner, name)) {
+                    break;
+                }
+                repositoryDecided = true;
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return accepts(type, createdAt, owner, name);
+    }
+
+    /**
+     * @see #accepts(JsonParser)
+     */
+    public boolean accepts(final JsonFactory factory,
+                           final byte[] json,
+                           final int offset,
+                           final int length) throws IOException {
+        JsonParser parser = factory.createParser(json, offset, length);
+        try {
+            return accepts(parser);
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * @param key a property key, as written to the graph
+     * @return whether properties with the given key are to be written.
+     * The numbered sha_1, sha_2... properties of push events are selected together, by the key "shas".
+     */
+    public boolean acceptsKey(final String key) {
+        return null == propertyKeys || propertyKeys.contains(key.startsWith("sha_") ? "shas" : key);
+    }
+
+    /**
+     * @return the number of events accepted so far
+     */
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    /**
+     * @return the number of events rejected so far
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public String toString() {
+        return "event filter: " + accepted.get() + " accepted, " + rejected.get() + " rejected";
+    }
+}
@@ -1,6 +1,7 @@
 package com.tinkerpop.etc.github;
 
 import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.thinkaurelius.titan.graphdb.idmanagement.IDInspector;
 import com.thinkaurelius.titan.graphdb.idmanagement.IDManager;
@@ -11,20 +12,14 @@ import com.tinkerpop.blueprints.util.wrappers.id.IdGraph;
 import com.tinkerpop.etc.github.beans.Comment;
 import com.tinkerpop.etc.github.beans.Event;
 import com.tinkerpop.etc.github.beans.Page;
+import com.tinkerpop.etc.github.beans.Payload;
 import com.tinkerpop.etc.github.beans.PullRequest;
 import com.tinkerpop.etc.github.beans.Release;
 import com.tinkerpop.etc.github.beans.RepositoryBrief;
 import com.tinkerpop.etc.github.beans.Team;
 import com.tinkerpop.etc.github.beans.User;
 
-import java.lang.reflect.Field;
-import java.nio.charset.Charset;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.HashSet;
-import java.util.Random;
 import java.util.Set;
 import java.util.logging.Logger;
 
@@ -34,12 +29,11 @@ import java.util.logging.Logger;
 public class EventHandler {
     protected static final Logger LOGGER = Logger.getLogger(EventHandler.class.getName());
 
-    private static final DateFormat
-            OLD_TIMESTAMP_FORMAT = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss Z"), // e.g. 2012/03/11 00:00:00 -0800
-            NEW_TIMESTAMP_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX"); // e.g. 2014-05-31T00:13:30-07:00
-
     public static final Set<Class> PROPERTY_CLASSES;
 
+    // the number of recent original IDs whose hashes are kept; a few times the number of vertices per event
+    private static final int VERTEX_ID_CACHE_SIZE = 1024;
+
     static {
         PROPERTY_CLASSES = new HashSet<Class>();
         PROPERTY_CLASSES.add(String.class);
@@ -50,19 +44,275 @@ public class EventHandler {
 
     private final Graph graph;
     private final HashFunction idHashFunction;
+    private final VertexCache vertexCache;
+
+    private boolean deterministicIds = false;
+    private StringDictionary stringDictionary;
+    private PropertyFingerprints propertyFingerprints;
+    // whether values have been recorded in the property fingerprints since the last commit
+    private boolean uncommittedFingerprints;
+    private EventFilter eventFilter;
+    private IngestMetrics metrics;
+
+    // for supernode mitigation: observed degrees, the degree at which a vertex becomes a supernode,
+    // and the span of time covered by each proxy vertex
+    private DegreeSketch degreeSketch;
+    private int supernodeThreshold;
+    private long proxyBucketMillis;
+    private String proxyPrefix = "proxy:";
+    private final VertexIdHasher.Key proxyKey = new VertexIdHasher.Key();
+    private long proxiesCreated;
+
+    // in sharded loading, this handler's shard and the number of shards; see handleSharedVertices
+    private int shard = 0;
+    private int shards = 1;
+    // set while handling shared vertices, and only those of this shard
+    private boolean sharedVerticesOnly;
+
+    // the ID of the event vertex most recently created, and the number of edges added to it, in deterministic mode
+    private long currentEventId;
+    private int currentEdgeIndex;
 
     public EventHandler(final Graph graph) {
+        this(graph, null);
+    }
+
+    /**
+     * @param graph       the graph to which events are written
+     * @param vertexCache an optional cache of vertices by internal ID, consulted before the graph.
+     *                    May be null, in which case every lookup goes to the graph.
+     */
+    public EventHandler(final Graph graph,
+                        final VertexCache vertexCache) {
         this.graph = graph;
+        this.vertexCache = vertexCache;
 
         idHashFunction = Hashing.sipHash24();
     }
 
+    /**
+     * @return the vertex cache of this handler, or null if there is none
+     */
+    public VertexCache getVertexCache() {
+        return vertexCache;
+    }
+
+    /**
+     * @param deterministicIds whether to derive the IDs of event vertices and their edges from the content of
+     *                         each event, rather than choosing them at random.
+     *                         In deterministic mode, an event which has already been written is skipped,
+     *                         so that loading a file more than once does not duplicate its events.
+     */
+    public void setDeterministicIds(final boolean deterministicIds) {
+        this.deterministicIds = deterministicIds;
+    }
+
+    public boolean getDeterministicIds() {
+        return deterministicIds;
+    }
+
+    /**
+     * @param stringDictionary an optional dictionary through which string property values are passed before they
+     *                         are written, so that repeated values share a single instance. May be null.
+     */
+    public void setStringDictionary(final StringDictionary stringDictionary) {
+        this.stringDictionary = stringDictionary;
+    }
+
+    /**
+     * @return the string dictionary of this handler, or null if there is none
+     */
+    public StringDictionary getStringDictionary() {
+        return stringDictionary;
+    }
+
+    /**
+     * @param propertyFingerprints an optional record of the property values last written to users, repositories
+     *                             and other shared vertices, so that unchanged values are not written again.
+     *                             May be null, in which case every value is written.
+     */
+    public void setPropertyFingerprints(final PropertyFingerprints propertyFingerprints) {
+        this.propertyFingerprints = propertyFingerprints;
+    }
+
+    /**
+     * @return the property fingerprints of this handler, or null if there are none
+     */
+    public PropertyFingerprints getPropertyFingerprints() {
+        return propertyFingerprints;
+    }
+
+    /**
+     * To be called whenever the transaction of this handler's graph is committed
+     */
+    public void committed() {
+        uncommittedFingerprints = false;
+    }
+
+    /**
+     * To be called whenever the transaction of this handler's graph is rolled back, or abandoned.
+     * If any property values have been recorded as written since the last commit, all are forgotten.
+     */
+    public void rolledBack() {
+        if (uncommittedFingerprints) {
+            propertyFingerprints.clear();
+            uncommittedFingerprints = false;
+        }
+    }
+
+    /**
+     * @param eventFilter an optional filter whose projection decides which properties are written.
+     *                    Events themselves are selected by the caller, before they are handled. May be null.
+     */
+    public void setEventFilter(final EventFilter eventFilter) {
+        this.eventFilter = eventFilter;
+    }
+
+    /**
+     * @return the event filter of this handler, or null if there is none
+     */
+    public EventFilter getEventFilter() {
+        return eventFilter;
+    }
+
+    /**
+     * @param metrics optional metrics, to which event types and edge write latencies are reported. May be null.
+     */
+    public void setMetrics(final IngestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the metrics of this handler, or null if there are none
+     */
+    public IngestMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Enables supernode mitigation. Edges are written directly to each vertex until its observed degree reaches the
+     * threshold; from then on, an event links instead to a proxy vertex which stands for the supernode during the
+     * bucket of time in which the event was created. Each proxy is linked to its supernode, when it is created,
+     * with a {@link GithubSchema.Label#proxy_of} edge whose timestamp is the start of the bucket, so the events of
+     * a supernode remain reachable in time order, while each write touches a small vertex.
+     * Degrees are those observed by this handler since it was created, so in sharded loading,
+     * each shard applies the threshold to its own share of edges.
+     *
+     * @param degreeSketch       a sketch in which to count the edges of each vertex
+     * @param supernodeThreshold the number of edges at which a vertex is treated as a supernode
+     * @param proxyBucketMillis  the span of time covered by each proxy vertex, e.g. one hour
+     */
+    public void setSupernodeMitigation(final DegreeSketch degreeSketch,
+                                       final int supernodeThreshold,
+                                       final long proxyBucketMillis) {
+        if (supernodeThreshold < 1 || proxyBucketMillis < 1) {
+            throw new IllegalArgumentException("threshold and bucket must be positive");
+        }
+
+        this.degreeSketch = degreeSketch;
+        this.supernodeThreshold = supernodeThreshold;
+        this.proxyBucketMillis = proxyBucketMillis;
+    }
+
+    /**
+     * @return the number of proxy vertices created by this handler so far
+     */
+    public long getProxiesCreated() {
+        return proxiesCreated;
+    }
+
+    /**
+     * Makes this handler one of several, each with its own graph transactions, which write events in two passes.
+     * First, each handler writes those users, repositories and other shared vertices which hash to its shard,
+     * using {@link #handleSharedVertices(Event)}, so that no two handlers ever modify the same shared vertex.
+     * Then, once all handlers have committed, each handler writes those events which belong to its shard
+     * (see {@link #shardOf(Event, int)}) using {@link #handle(Event)}, which only links to the shared vertices.
+     *
+     * @param shard  the shard of this handler, from 0 to shards - 1
+     * @param shards the number of shards
+     */
+    public void setShard(final int shard,
+                         final int shards) {
+        if (shards < 1 || shard < 0 || shard >= shards) {
+            throw new IllegalArgumentException("invalid shard " + shard + " of " + shards);
+        }
+
+        this.shard = shard;
+        this.shards = shards;
+
+        // each shard links its events to proxies of its own, so that no two shards ever write to the same proxy
+        proxyPrefix = 1 == shards ? "proxy:" : "proxy" + shard + ":";
+    }
+
+    /**
+     * The first pass of sharded loading: creates and updates the shared vertices of the event which belong
+     * to this handler's shard, without creating the event itself
+     */
+    public void handleSharedVertices(final Event sourceEvent) throws IllegalAccessException {
+        sharedVerticesOnly = true;
+        try {
+            if (null != sourceEvent.actor) {
+                getActor(sourceEvent);
+            }
+
+            if (null != sourceEvent.repository) {
+                getRepository(sourceEvent.repository);
+            }
+
+            Payload p = sourceEvent.payload;
+            if (null != p) {
+                if (null != p.target) {
+                    getUser(p.target);
+                }
+                if (null != p.pages) {
+                    for (Page page : p.pages) {
+                        getPage(page);
+                    }
+                }
+                if (null != p.member) {
+                    getUser(p.member);
+                }
+                if (null != p.pull_request) {
+                    getPullRequest(p.pull_request);
+                }
+                if (null != p.comment) {
+                    getComment(p.comment);
+                }
+                if (null != p.release) {
+                    getRelease(p.release);
+                }
+                if (null != p.team) {
+                    getTeam(p.team);
+                }
+            }
+        } finally {
+            sharedVerticesOnly = false;
+        }
+    }
+
+    /**
+     * @param index the position of the event in its batch
+     * @return the shard which writes the given event in the second pass of sharded loading.
+     * In deterministic mode, this depends only on the event, so that duplicate events meet in the same shard,
+     * where all but the first are skipped.
+     */
+    public int shardOf(final Event event,
+                       final int index) {
+        long hash = deterministicIds ? hashKey(eventKey(event)) : index;
+        return (int) ((hash & Long.MAX_VALUE) % shards);
+    }
+
     public void handle(final Event sourceEvent) throws IllegalAccessException {
+        if (null != metrics) {
+            metrics.eventOfType(sourceEvent.type);
+        }
 
         long timestamp = parseTimestamp(sourceEvent.created_at);
 
-        long id = randomVertexId();
-        Vertex eventV = getOrCreateVertex(id, "event:" + id, GithubSchema.TYPE_EVENT);
+        Vertex eventV = createEventVertex(deterministicIds ? eventKey(sourceEvent) : null);
+        if (null == eventV) {
+            return;
+        }
 
         setProperties(sourceEvent, eventV);
 
@@ -111,7 +361,7 @@ public class EventHandler {
                 for (Object sha : sourceEvent.payload.shas) {
                     if (PROPERTY_CLASSES.contains(sha.getClass())) {
                         index++;
-                        eventV.setProperty("sha_" + index, sha);
+                        setProperty(eventV, "sha_" + index, sha);
                     }
                 }
             }
@@ -127,30 +377,29 @@ public class EventHandler {
         }
     }
 
-    private final Random random = new Random();
+    // one allocator per handler, and so per writer thread
+    private final IdAllocator idAllocator = new IdAllocator();
 
     private final IDInspector idInspector = new IDManager().getIDInspector();
 
-    private long randomVertexId() {
-        long id;
-        do {
-            id = Math.abs(idHashFunction.hashLong(random.nextLong()).asLong());
-        } while (!idInspector.isVertexID(id));
+    private final VertexIdHasher vertexIdHasher = new VertexIdHasher(VERTEX_ID_CACHE_SIZE);
 
-        return id;
-    }
+    private final VertexIdHasher.Key vertexKey = new VertexIdHasher.Key();
 
-    private long randomEdgeId() {
-        long id;
-        do {
-            id = Math.abs(idHashFunction.hashLong(random.nextLong()).asLong());
-        } while (!idInspector.isRelationID(id));
+    protected long hashedVertexId(final String toHash) {
+        return validVertexId(vertexIdHasher.hash(toHash));
+    }
 
-        return id;
+    /**
+     * @return the same ID as {@link #hashedVertexId(String)} for the string form of the key,
+     * without building that string
+     */
+    protected long hashedVertexId(final VertexIdHasher.Key key) {
+        return validVertexId(vertexIdHasher.hash(key));
     }
 
-    private long hashedVertexId(final String toHash) {
-        long id = Math.abs(idHashFunction.hashString(toHash, Charset.defaultCharset()).asLong());
+    private long validVertexId(final long hash) {
+        long id = Math.abs(hash);
         int count = 0;
         while (!idInspector.isVertexID(id)) {
             if (++count == 64) {
@@ -163,42 +412,211 @@ public class EventHandler {
     }
 
     protected long parseTimestamp(final String timestamp) {
-        Date d;
-
-        try {
-            d = NEW_TIMESTAMP_FORMAT.parse(timestamp);
-        } catch (ParseException e) {
-            try {
-                d = OLD_TIMESTAMP_FORMAT.parse(timestamp);
-            } catch (ParseException e1) {
-                throw new IllegalArgumentException("not a valid timestamp: " + timestamp);
-            }
-        }
-
-        return d.getTime();
+        return TimestampParser.parse(timestamp);
     }
 
     protected void addEdgeTo(final Vertex eventV,
                              final Vertex inV,
                              final GithubSchema.Label label,
                              final long timestamp) {
-        Edge e = graph.addEdge(randomEdgeId(), eventV, inV, label.name());
+        long start = null == metrics ? 0 : System.nanoTime();
+
+        Vertex target = null == degreeSketch ? inV : proxyFor(inV, timestamp);
+        Edge e = graph.addEdge(deterministicIds ? nextEdgeId() : idAllocator.nextRelationId(), eventV, target, label.name());
         e.setProperty(GithubSchema.TIMESTAMP, timestamp);
+
+        if (null != metrics) {
+            metrics.edgeWritten(label, start);
+        }
+    }
+
+    // returns the given vertex itself, unless it is a supernode
+    private Vertex proxyFor(final Vertex v,
+                            final long timestamp) {
+        long id = toLong(v.getId());
+        if (degreeSketch.add(id) < supernodeThreshold) {
+            return v;
+        }
+
+        long bucket = timestamp - (timestamp % proxyBucketMillis + proxyBucketMillis) % proxyBucketMillis;
+        long proxyId = hashedVertexId(proxyKey.set(proxyPrefix, id, bucket));
+
+        Vertex proxy = null == vertexCache ? null : vertexCache.get(proxyId);
+        if (null == proxy) {
+            proxy = existingVertex(proxyId);
+            if (null == proxy) {
+                proxy = graph.addVertex(proxyId);
+                proxy.setProperty(IdGraph.ID, proxyKey.toString());
+                proxy.setProperty(GithubSchema.TYPE, GithubSchema.TYPE_PROXY);
+                proxy.setProperty(GithubSchema.TIMESTAMP, bucket);
+
+                long start = null == metrics ? 0 : System.nanoTime();
+                // a proxy has a single proxy_of edge, so in deterministic mode, its ID is derived from the proxy's
+                long edgeId = deterministicIds ? proxyId | 1 : idAllocator.nextRelationId();
+                Edge e = graph.addEdge(edgeId, proxy, v, GithubSchema.Label.proxy_of.name());
+                e.setProperty(GithubSchema.TIMESTAMP, bucket);
+                if (null != metrics) {
+                    metrics.edgeWritten(GithubSchema.Label.proxy_of, start);
+                }
+
+                proxiesCreated++;
+            }
+
+            if (null != vertexCache) {
+                vertexCache.put(proxyId, proxy);
+            }
+        }
+
+        return proxy;
+    }
+
+    private static long toLong(final Object id) {
+        return id instanceof Number ? ((Number) id).longValue() : Long.valueOf(id.toString());
+    }
+
+    /**
+     * @param key the identifying fields of the event (see {@link #eventKey(Event)}), in deterministic mode.
+     *            Otherwise ignored.
+     * @return a new event vertex, or null if the vertex already exists in deterministic mode
+     */
+    protected Vertex createEventVertex(final Object[] key) {
+        long id;
+        if (deterministicIds) {
+            id = validVertexId(hashKey(key));
+            if (null != existingVertex(id)) {
+                return null;
+            }
+
+            currentEventId = id;
+            currentEdgeIndex = 0;
+        } else {
+            id = idAllocator.nextVertexId();
+        }
+
+        // event vertices are never looked up again, so keep them out of the cache.  A deterministic ID has just been
+        // found to be free, and a random one is new, so add the vertex without reading it back
+        return addVertex(id, "event:" + id, GithubSchema.TYPE_EVENT);
+    }
+
+    /**
+     * @return the fields which together identify an event, in a fixed order.
+     * The streaming parser produces the same values for the same event.
+     */
+    protected Object[] eventKey(final Event event) {
+        Object[] key = new Object[EVENT_KEY_LENGTH];
+        key[0] = event.type;
+        key[1] = event.created_at;
+        key[2] = event.actor;
+        if (null != event.repository) {
+            key[3] = event.repository.owner;
+            key[4] = event.repository.name;
+        }
+
+        Payload p = event.payload;
+        if (null != p) {
+            key[5] = p.action;
+            key[6] = p.ref;
+            key[7] = p.head;
+            key[8] = p.number;
+            key[9] = p.id;
+            key[10] = null == p.comment ? null : p.comment.id;
+            key[11] = null == p.pull_request ? null : p.pull_request.id;
+            key[12] = null == p.release ? null : p.release.id;
+            key[13] = null == p.team ? null : p.team.id;
+            key[14] = null == p.target ? null : p.target.login;
+            key[15] = null == p.member ? null : p.member.login;
+            key[16] = null == p.pages || 0 == p.pages.length ? null : p.pages[0].sha;
+        }
+
+        return key;
+    }
+
+    protected static final int EVENT_KEY_LENGTH = 17;
+
+    private long hashKey(final Object[] key) {
+        Hasher hasher = idHashFunction.newHasher();
+        for (Object part : key) {
+            if (null == part) {
+                hasher.putInt(-1);
+            } else {
+                String s = part.toString();
+                hasher.putInt(s.length());
+                hasher.putUnencodedChars(s);
+            }
+        }
+
+        return hasher.hash().asLong();
+    }
+
+    private long nextEdgeId() {
+        long hash = idHashFunction.newHasher().putLong(currentEventId).putInt(currentEdgeIndex++).hash().asLong();
+        int count = 0;
+        while (!idInspector.isRelationID(Math.abs(hash))) {
+            if (++count == 64) {
+                throw new IllegalStateException("couldn't find a valid ID");
+            }
+            // relation IDs are odd, so doubling would never produce one; hash again instead
+            hash = idHashFunction.hashLong(hash).asLong();
+        }
+
+        return Math.abs(hash);
+    }
+
+    protected Vertex getOrCreateVertex(final String originalId,
+                                       final String type) {
+        return getOrCreateVertex(hashedVertexId(originalId), originalId, type);
     }
 
+    /**
+     * @param originalId the original ID of the vertex, as a string or a {@link VertexIdHasher.Key},
+     *                   which is only turned into a string if the vertex is new
+     */
     protected Vertex getOrCreateVertex(final long internalId,
-                                       final String originalId,
+                                       final Object originalId,
                                        final String type) {
-        Vertex v = graph.getVertex(internalId);
-        if (null == v) {
-            v = graph.addVertex(internalId);
-            v.setProperty(IdGraph.ID, originalId);
-            v.setProperty(GithubSchema.TYPE, type);
+        Vertex v;
+        if (null != vertexCache) {
+            v = vertexCache.get(internalId);
+            if (null != v) {
+                return v;
+            }
+        }
+
+        v = findOrAddVertex(internalId, originalId, type);
+
+        if (null != vertexCache) {
+            vertexCache.put(internalId, v);
         }
 
         return v;
     }
 
+    private Vertex findOrAddVertex(final long internalId,
+                                   final Object originalId,
+                                   final String type) {
+        Vertex v = existingVertex(internalId);
+        return null == v ? addVertex(internalId, originalId, type) : v;
+    }
+
+    private Vertex addVertex(final long internalId,
+                             final Object originalId,
+                             final String type) {
+        Vertex v = graph.addVertex(internalId);
+        v.setProperty(IdGraph.ID, originalId.toString());
+        v.setProperty(GithubSchema.TYPE, type);
+        return v;
+    }
+
+    /**
+     * @return the vertex with the given ID, or null if there is none.
+     * When batch loading, Titan does not check that a vertex exists, but returns an empty vertex for any valid ID,
+     * whereas every vertex written by this handler has a type.
+     */
+    private Vertex existingVertex(final long id) {
+        Vertex v = graph.getVertex(id);
+        return null == v || null == v.getProperty(GithubSchema.TYPE) ? null : v;
+    }
+
     private Vertex getVertex(final Object source,
                              final Object id,
                              final String prefix,
@@ -207,12 +625,22 @@ public class EventHandler {
             throw new IllegalArgumentException("null id");
         }
 
-        String originalId = prefix + id;
+        return getVertex(source, vertexKey.set(prefix, id), type);
+    }
+
+    private Vertex getVertex(final Object source,
+                             final VertexIdHasher.Key originalId,
+                             final String type) throws IllegalAccessException {
         long internalId = hashedVertexId(originalId);
+        if (sharedVerticesOnly && (int) ((internalId >>> 2) % shards) != shard) {
+            return null;
+        }
 
         Vertex v = getOrCreateVertex(internalId, originalId, type);
-        if (null != source) {
-            setProperties(source, v);
+
+        // in the second pass of sharded loading, shared vertices have already been written by their own shards
+        if (null != source && (1 == shards || sharedVerticesOnly)) {
+            updateProperties(source, v, internalId);
         }
         return v;
     }
@@ -242,7 +670,7 @@ public class EventHandler {
     }
 
     protected Vertex getRepository(final RepositoryBrief source) throws IllegalAccessException {
-        return getVertex(source, source.owner + "/" + source.name, "repo:", GithubSchema.TYPE_REPOSITORY);
+        return getVertex(source, vertexKey.set("repo:", source.owner, source.name), GithubSchema.TYPE_REPOSITORY);
     }
 
     protected Vertex getTeam(final Team source) throws IllegalAccessException {
@@ -251,24 +679,64 @@ public class EventHandler {
 
     private void setProperties(final Object source,
                                final Vertex target) throws IllegalAccessException {
-        Class clazz = source.getClass();
-        for (Field f : clazz.getFields()) {
-            Object value = f.get(source);
+        BeanProperties properties = BeanProperties.of(source.getClass());
+        for (int i = 0; i < properties.size(); i++) {
+            Object value = properties.getValue(source, i);
             if (null != value) {
-                if (PROPERTY_CLASSES.contains(value.getClass())) {
-                    String key = f.getName();
-                    key = fixPropertyKey(key);
-                    try {
-                        target.setProperty(key, value);
-                    } catch (IllegalArgumentException e) {
-                        // occasionally, Titan will reject certain property values
-                        LOGGER.warning("failed to set property " + key + " on vertex " + target.getId() + ": " + e.getMessage());
-                    }
-                }
+                setProperty(target, properties.getKey(i), value);
+            }
+        }
+    }
+
+    private void updateProperties(final Object source,
+                                  final Vertex target,
+                                  final long vertexId) throws IllegalAccessException {
+        BeanProperties properties = BeanProperties.of(source.getClass());
+        for (int i = 0; i < properties.size(); i++) {
+            Object value = properties.getValue(source, i);
+            if (null != value) {
+                updateProperty(target, vertexId, properties.getKey(i), value);
             }
         }
     }
 
+    /**
+     * Sets a property of a shared vertex, unless the vertex is known to have that value already
+     */
+    protected void updateProperty(final Vertex target,
+                                  final long vertexId,
+                                  final String key,
+                                  final Object value) {
+        if (null == propertyFingerprints) {
+            setProperty(target, key, value);
+        } else if (propertyFingerprints.changed(vertexId, key, value) && setProperty(target, key, value)) {
+            propertyFingerprints.written(vertexId, key, value);
+            uncommittedFingerprints = true;
+        }
+    }
+
+    /**
+     * @return whether the property was written, rather than left out by the projection or rejected by the graph
+     */
+    protected boolean setProperty(final Vertex target,
+                                  final String key,
+                                  final Object value) {
+        if (null != eventFilter && !eventFilter.acceptsKey(key)) {
+            return false;
+        }
+
+        try {
+            target.setProperty(key, null != stringDictionary && value instanceof String
+                    ? stringDictionary.intern(key, (String) value)
+                    : value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            // occasionally, Titan will reject certain property values
+            LOGGER.warning("failed to set property " + key + " on vertex " + target.getId() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
     private static final Set<String> RESERVED_KEYS;
 
     static {
@@ -1,30 +1,43 @@
 package com.tinkerpop.etc.github;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.TransactionalGraph;
 import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
 import com.tinkerpop.etc.github.beans.Event;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.net.URL;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
+import java.io.PushbackInputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -34,22 +47,92 @@ public class GithubLoader {
     private static final Logger LOGGER = Logger.getLogger(GithubLoader.class.getName());
 
     private static final String
+            ADJACENCY_STORE = "adjacencyStore",
+            COMMIT_EVENTS = "commitEvents",
+            COMMIT_MILLIS = "commitMillis",
+            ARCHIVE_URL = "archiveUrl",
+            BULK_DIRECTORY = "bulkDirectory",
+            BULK_PARTITIONS = "bulkPartitions",
             DOWNLOAD_DIRECTORY = "downloadDirectory",
+            DOWNLOAD_THREADS = "downloadThreads",
+            EVENT_IDS = "eventIds",
+            EVENT_TYPES = "eventTypes",
+            EVENTS_AFTER = "eventsAfter",
+            EVENTS_BEFORE = "eventsBefore",
+            FILE_IN_PROGRESS = "fileInProgress",
             LAST_FILE_LOADED = "lastFileLoaded",
+            LINES_COMMITTED = "linesCommitted",
+            LOAD_THREADS = "loadThreads",
+            METRICS = "metrics",
+            METRICS_FILE = "metricsFile",
+            METRICS_INTERVAL = "metricsInterval",
+            PARSE_THREADS = "parseThreads",
+            PARSER = "parser",
+            PIPELINE = "pipeline",
+            PIPELINE_BATCH_SIZE = "pipelineBatchSize",
+            PIPELINE_QUEUE_SIZE = "pipelineQueueSize",
+            PROPERTY_FINGERPRINTS = "propertyFingerprints",
+            PROPERTY_KEYS = "propertyKeys",
+            REPOSITORIES = "repositories",
+            SNAPSHOT_FILE = "snapshotFile",
+            STRING_DICTIONARY_SIZE = "stringDictionarySize",
+            SUPERNODE_BUCKET = "supernodeBucket",
+            SUPERNODE_THRESHOLD = "supernodeThreshold",
+            TAIL = "tail",
+            TAIL_POLL_SECONDS = "tailPollSeconds",
+            READ_AHEAD_BUFFERS = "readAheadBuffers",
+            VERTEX_CACHE_SIZE = "vertexCacheSize",
+            WRITER_SHARDS = "writerShards",
             START_HOUR = "startHour",
             END_HOUR = "endHour";
 
+    // the size of the buffer of compressed input; the default of 512 bytes means many small reads
+    private static final int GZIP_BUFFER_SIZE = 1 << 16;
+    private static final int READ_AHEAD_CHUNK_SIZE = 1 << 20;
+    // counters per row of the degree sketch: 4 rows of 1M counters take 16MB per handler
+    private static final int DEGREE_SKETCH_WIDTH = 1 << 20;
+
     private boolean verbose = false;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private final Graph graph;
+    // in bulk mode, the graph into which the intermediate is imported; otherwise null
+    private final Graph bulkTarget;
+    private final int vertexCacheSize;
+    private final boolean deterministicIds;
+    // if set, the in-memory graph is restored from this file on startup, and saved to it after loading
+    private final File snapshotFile;
+    // whether to replicate the edges of the in-memory graph to an adjacency store after loading
+    private final boolean buildAdjacencyStore;
+    private volatile AdjacencyStore adjacencyStore;
     private final EventHandler handler;
+    // null if all events and properties are loaded
+    private final EventFilter eventFilter;
+    // null unless metrics are enabled
+    private final IngestMetrics metrics;
+    private final StreamingEventHandler streamingHandler;
+    // null unless events are written by several shards, in which case they write directly to the base graph
+    private final List<EventHandler> shardHandlers;
+    private final TransactionalGraph shardedGraph;
     private final File statusFile;
     private final Properties configuration;
     private File lastFileLoaded;
+    private File fileInProgress;
+    private long linesCommitted;
     private String downloadDirectory;
+    private final String archiveUrl;
+    private final int downloadThreads;
     private GithubTimestamp startHour, endHour;
+    // if positive, the interval at which to poll for new hours while following the archive
+    private final long tailPollMillis;
+    private final int loadThreads;
+    private final boolean pipeline;
+    private final int parseThreads;
+    private final int pipelineQueueSize;
+    private final int pipelineBatchSize;
+    private final int readAheadBuffers;
+    private final CommitPolicy commitPolicy;
 
     private final Comparator<File> fileComparator = new GitHubArchiveFileComparator();
 
@@ -71,7 +154,18 @@ public class GithubLoader {
             lastFileLoaded = new File(s);
         }
 
+        s = configuration.getProperty(FILE_IN_PROGRESS);
+        if (null != s) {
+            fileInProgress = new File(s);
+            linesCommitted = Long.valueOf(configuration.getProperty(LINES_COMMITTED, "0"));
+        }
+
         downloadDirectory = configuration.getProperty(DOWNLOAD_DIRECTORY);
+        archiveUrl = configuration.getProperty(ARCHIVE_URL, "http://data.githubarchive.org/");
+        downloadThreads = Integer.valueOf(configuration.getProperty(DOWNLOAD_THREADS, "1"));
+        if (downloadThreads < 1) {
+            throw new IllegalStateException(DOWNLOAD_THREADS + " must be a positive integer");
+        }
 
         s = configuration.getProperty(START_HOUR);
         if (null == s) {
@@ -87,40 +181,342 @@ public class GithubLoader {
             endHour = new GithubTimestamp(s);
         }
 
+        if (Boolean.valueOf(configuration.getProperty(TAIL, "false"))) {
+            long pollSeconds = Long.valueOf(configuration.getProperty(TAIL_POLL_SECONDS, "60"));
+            if (pollSeconds < 1) {
+                throw new IllegalStateException(TAIL_POLL_SECONDS + " must be a positive integer");
+            }
+            if (null != endHour) {
+                throw new IllegalStateException(TAIL + " and " + END_HOUR + " are mutually exclusive");
+            }
+            tailPollMillis = pollSeconds * 1000;
+        } else {
+            tailPollMillis = 0;
+        }
+
+        loadThreads = Integer.valueOf(configuration.getProperty(LOAD_THREADS, "1"));
+        if (loadThreads < 1) {
+            throw new IllegalStateException(LOAD_THREADS + " must be a positive integer");
+        }
+
+        pipeline = Boolean.valueOf(configuration.getProperty(PIPELINE, "false"));
+        parseThreads = Integer.valueOf(configuration.getProperty(PARSE_THREADS, "2"));
+        pipelineQueueSize = Integer.valueOf(configuration.getProperty(PIPELINE_QUEUE_SIZE, "16"));
+        pipelineBatchSize = Integer.valueOf(configuration.getProperty(PIPELINE_BATCH_SIZE, "1000"));
+        if (parseThreads < 1 || pipelineQueueSize < 1 || pipelineBatchSize < 1) {
+            throw new IllegalStateException(PARSE_THREADS + ", " + PIPELINE_QUEUE_SIZE + " and "
+                    + PIPELINE_BATCH_SIZE + " must be positive integers");
+        }
+        if (pipeline && loadThreads > 1) {
+            throw new IllegalStateException(PIPELINE + " and " + LOAD_THREADS + " > 1 are mutually exclusive");
+        }
+        if (tailPollMillis > 0 && loadThreads > 1) {
+            // the parallel loader looks ahead for files before writing those it has, so it would wait for new hours
+            throw new IllegalStateException(TAIL + " and " + LOAD_THREADS + " > 1 are mutually exclusive; use "
+                    + PIPELINE + " instead");
+        }
+
+        readAheadBuffers = Integer.valueOf(configuration.getProperty(READ_AHEAD_BUFFERS, "4"));
+        if (readAheadBuffers < 0) {
+            throw new IllegalStateException(READ_AHEAD_BUFFERS + " must be a non-negative integer");
+        }
+
+        commitPolicy = new CommitPolicy(
+                Long.valueOf(configuration.getProperty(COMMIT_EVENTS, "0")),
+                Long.valueOf(configuration.getProperty(COMMIT_MILLIS, "0")));
+
+        vertexCacheSize = Integer.valueOf(configuration.getProperty(VERTEX_CACHE_SIZE, "0"));
+        VertexCache vertexCache = vertexCacheSize > 0 ? new LruVertexCache(vertexCacheSize) : null;
+
+        Graph baseGraph;
         String storageBackend = configuration.getProperty("storage.backend");
         String keyspace = configuration.getProperty("storage.keyspace", "github");
         if (null == storageBackend) {
             LOGGER.warning("no storage backend specified.  Using TinkerGraph");
-            graph = GraphFactory.createTinkerGraph();
+            baseGraph = GraphFactory.createTinkerGraph();
+        } else if (storageBackend.equals("memory")) {
+            baseGraph = GraphFactory.createCompactGraph();
         } else if (storageBackend.equals("berkeleyje")) {
             String dir = configuration.getProperty("storage.directory", "/tmp/github");
-            graph = batchGraph(GraphFactory.createTitanOnBerkeleyJE(dir, keyspace));
+            baseGraph = GraphFactory.createTitanOnBerkeleyJE(dir, keyspace);
         } else if (storageBackend.equals("cassandra")) {
             String host = configuration.getProperty("storage.hostname", "127.0.0.1");
-            graph = batchGraph(GraphFactory.createTitanOnCassandra(host, keyspace));
+            baseGraph = GraphFactory.createTitanOnCassandra(host, keyspace);
         } else if (storageBackend.equals("hbase")) {
-            graph = batchGraph(GraphFactory.createTitanOnHBase(keyspace));
+            baseGraph = GraphFactory.createTitanOnHBase(keyspace);
         } else {
             throw new IllegalStateException("unsupported storage backend: " + storageBackend);
         }
 
-        handler = new EventHandler(graph);
+        s = configuration.getProperty(BULK_DIRECTORY);
+        if (null != s) {
+            int bulkPartitions = Integer.valueOf(configuration.getProperty(BULK_PARTITIONS, "64"));
+            if (bulkPartitions < 1) {
+                throw new IllegalStateException(BULK_PARTITIONS + " must be a positive integer");
+            }
+
+            // events are written to the intermediate, and imported into the base graph once all files are exported
+            graph = new BulkExportGraph(new File(s), bulkPartitions);
+            bulkTarget = baseGraph;
+        } else {
+            graph = baseGraph instanceof TransactionalGraph
+                    ? batchGraph((TransactionalGraph) baseGraph, vertexCache)
+                    : baseGraph;
+            bulkTarget = null;
+        }
+
+        if (tailPollMillis > 0 && null != bulkTarget) {
+            // the intermediate is only imported once all files have been exported, which never happens in tail mode
+            throw new IllegalStateException(TAIL + " is not supported with " + BULK_DIRECTORY);
+        }
+
+        s = configuration.getProperty(SNAPSHOT_FILE);
+        if (null != s) {
+            if (tailPollMillis > 0) {
+                // a snapshot is saved at the end of a load, which never comes in tail mode
+                throw new IllegalStateException(TAIL + " is not supported with " + SNAPSHOT_FILE);
+            }
+            if (!(baseGraph instanceof CompactGraph) || null != bulkTarget) {
+                throw new IllegalStateException(SNAPSHOT_FILE + " requires storage.backend = memory, without "
+                        + BULK_DIRECTORY);
+            }
+
+            snapshotFile = new File(s);
+            restoreSnapshot();
+        } else {
+            snapshotFile = null;
+        }
+
+        buildAdjacencyStore = Boolean.valueOf(configuration.getProperty(ADJACENCY_STORE, "false"));
+        if (buildAdjacencyStore) {
+            if (tailPollMillis > 0) {
+                // the store is built at the end of a load, which never comes in tail mode
+                throw new IllegalStateException(TAIL + " is not supported with " + ADJACENCY_STORE);
+            }
+            if (!(baseGraph instanceof CompactGraph) || null != bulkTarget) {
+                throw new IllegalStateException(ADJACENCY_STORE + " requires storage.backend = memory, without "
+                        + BULK_DIRECTORY);
+            }
+        }
+
+        String eventIds = configuration.getProperty(EVENT_IDS, "random");
+        if (eventIds.equals("deterministic")) {
+            deterministicIds = true;
+        } else if (eventIds.equals("random")) {
+            deterministicIds = false;
+        } else {
+            throw new IllegalStateException("unsupported event ID mode: " + eventIds);
+        }
+
+        eventFilter = createEventFilter();
+        metrics = createMetrics();
+
+        handler = createHandler(graph, vertexCache, 1);
+
+        int writerShards = Integer.valueOf(configuration.getProperty(WRITER_SHARDS, "1"));
+        if (writerShards < 1) {
+            throw new IllegalStateException(WRITER_SHARDS + " must be a positive integer");
+        } else if (writerShards > 1) {
+            if (!pipeline || !(baseGraph instanceof TransactionalGraph) || null != bulkTarget) {
+                throw new IllegalStateException(WRITER_SHARDS + " > 1 requires " + PIPELINE
+                        + " and a Titan storage backend, without " + BULK_DIRECTORY);
+            }
+            if (!deterministicIds) {
+                // Shards commit their events independently, so a batch which fails in one shard may already be
+                // committed in others.  The batch is written again on resume, which only deterministic IDs make safe
+                throw new IllegalStateException(WRITER_SHARDS + " > 1 requires " + EVENT_IDS + " = deterministic");
+            }
+
+            // Titan binds transactions to threads, so the shards share the base graph, each with its own cache.
+            // Shards are never wrapped in BatchGraph, which would not find the vertices written by other shards
+            shardedGraph = (TransactionalGraph) baseGraph;
+            shardHandlers = new LinkedList<EventHandler>();
+            for (int i = 0; i < writerShards; i++) {
+                VertexCache shardCache = vertexCacheSize > 0 ? new LruVertexCache(vertexCacheSize) : null;
+                shardHandlers.add(createHandler(shardedGraph, shardCache, writerShards));
+            }
+        } else {
+            shardedGraph = null;
+            shardHandlers = null;
+        }
+
+        if (null != metrics && vertexCacheSize > 0) {
+            // with several shards, the main handler and its cache are not used
+            if (null == shardHandlers) {
+                metrics.register("vertexCache", handler.getVertexCache());
+            } else {
+                int shard = 0;
+                for (EventHandler h : shardHandlers) {
+                    metrics.register("vertexCache.shard" + shard++, h.getVertexCache());
+                }
+            }
+        }
+
+        // Events already loaded are found with getVertex, which the bulk intermediate always answers with null,
+        // and which BatchGraph answers from its cache of the vertices added in this run only
+        if (deterministicIds && (graph instanceof BulkExportGraph
+                || (graph instanceof BatchGraph && null == shardHandlers))) {
+            throw new IllegalStateException(EVENT_IDS + " = deterministic is not supported with " + BULK_DIRECTORY
+                    + ", and requires " + VERTEX_CACHE_SIZE + " > 0 or " + WRITER_SHARDS + " > 1 with a Titan"
+                    + " storage backend");
+        }
+
+        String parser = configuration.getProperty(PARSER, "bean");
+        if (parser.equals("streaming")) {
+            if (pipeline) {
+                // the streaming parser writes as it tokenizes, so there is no separate parse stage
+                throw new IllegalStateException(PIPELINE + " requires the bean parser");
+            }
+            if (loadThreads > 1) {
+                // parallel files reach the writer as batches of bound events, rather than as whole decompressed files
+                throw new IllegalStateException(LOAD_THREADS + " > 1 requires the bean parser");
+            }
+            streamingHandler = new StreamingEventHandler(handler, objectMapper.getFactory());
+        } else if (parser.equals("bean")) {
+            streamingHandler = null;
+        } else {
+            throw new IllegalStateException("unsupported parser: " + parser);
+        }
+    }
+
+    // each of the given number of shards counts degrees in a sketch of its own
+    private EventHandler createHandler(final Graph g,
+                                      final VertexCache vertexCache,
+                                      final int shards) {
+        EventHandler h = new EventHandler(g, vertexCache);
+
+        int stringDictionarySize = Integer.valueOf(configuration.getProperty(STRING_DICTIONARY_SIZE, "0"));
+        if (stringDictionarySize > 0) {
+            h.setStringDictionary(new StringDictionary(stringDictionarySize));
+        }
+
+        int propertyFingerprints = Integer.valueOf(configuration.getProperty(PROPERTY_FINGERPRINTS, "0"));
+        if (propertyFingerprints > 0) {
+            h.setPropertyFingerprints(new PropertyFingerprints(propertyFingerprints));
+        }
+
+        h.setDeterministicIds(deterministicIds);
+
+        int supernodeThreshold = Integer.valueOf(configuration.getProperty(SUPERNODE_THRESHOLD, "0"));
+        if (supernodeThreshold > 0) {
+            if (null != bulkTarget) {
+                // proxies are found by reading them back, which the bulk intermediate does not allow
+                throw new IllegalStateException(SUPERNODE_THRESHOLD + " is not supported with " + BULK_DIRECTORY);
+            }
+
+            String bucket = configuration.getProperty(SUPERNODE_BUCKET, "hour");
+            long bucketMillis;
+            if (bucket.equals("hour")) {
+                bucketMillis = 60L * 60 * 1000;
+            } else if (bucket.equals("day")) {
+                bucketMillis = 24L * 60 * 60 * 1000;
+            } else {
+                throw new IllegalStateException("unsupported supernode bucket: " + bucket);
+            }
+
+            // Events are spread across shards by hash, so each shard sees about 1/shards of the edges of a hot vertex.
+            // Scaling the threshold is cheaper than a shared sketch, whose hottest counters every shard would contend for
+            int shardThreshold = (supernodeThreshold + shards - 1) / shards;
+            h.setSupernodeMitigation(new DegreeSketch(DEGREE_SKETCH_WIDTH), shardThreshold, bucketMillis);
+        }
+
+        h.setEventFilter(eventFilter);
+        h.setMetrics(metrics);
+
+        return h;
+    }
+
+    private IngestMetrics createMetrics() throws IOException {
+        if (!Boolean.valueOf(configuration.getProperty(METRICS, "false"))) {
+            return null;
+        }
+
+        IngestMetrics m = new IngestMetrics();
+        m.startJmx();
+
+        String s = configuration.getProperty(METRICS_FILE);
+        if (null != s) {
+            long interval = Long.valueOf(configuration.getProperty(METRICS_INTERVAL, "60"));
+            if (interval < 1) {
+                throw new IllegalStateException(METRICS_INTERVAL + " must be a positive integer");
+            }
+            m.startFileReport(new File(s), interval);
+        }
+
+        return m;
+    }
+
+    private EventFilter createEventFilter() {
+        String types = configuration.getProperty(EVENT_TYPES);
+        String repositories = configuration.getProperty(REPOSITORIES);
+        String after = configuration.getProperty(EVENTS_AFTER);
+        String before = configuration.getProperty(EVENTS_BEFORE);
+        String keys = configuration.getProperty(PROPERTY_KEYS);
+        if (null == types && null == repositories && null == after && null == before && null == keys) {
+            return null;
+        }
+
+        try {
+            return new EventFilter(
+                    null == types ? null : listOf(types),
+                    null == repositories ? null : Pattern.compile(repositories.trim()),
+                    null == after ? Long.MIN_VALUE : TimestampParser.parse(after.trim()),
+                    null == before ? Long.MAX_VALUE : TimestampParser.parse(before.trim()),
+                    null == keys ? null : listOf(keys));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("invalid event filter: " + e.getMessage(), e);
+        }
+    }
+
+    private static Set<String> listOf(final String commaSeparated) {
+        Set<String> values = new HashSet<String>();
+        for (String s : commaSeparated.split(",")) {
+            if (s.trim().length() > 0) {
+                values.add(s.trim());
+            }
+        }
+        return values;
     }
 
-    private BatchGraph batchGraph(final TransactionalGraph baseGraph) {
+    private TransactionalGraph batchGraph(final TransactionalGraph baseGraph,
+                                          final VertexCache vertexCache) {
+        if (null != vertexCache) {
+            // the bounded vertex cache takes the place of BatchGraph's unbounded one
+            return baseGraph;
+        }
+
         // use BatchGraph for the vertex cache, but don't buffer commits
         return new BatchGraph<TransactionalGraph>(baseGraph, Long.MAX_VALUE);
     }
 
     private void saveConfiguration() throws IOException {
-        configuration.setProperty(LAST_FILE_LOADED, lastFileLoaded.getAbsolutePath());
+        if (null != lastFileLoaded) {
+            configuration.setProperty(LAST_FILE_LOADED, lastFileLoaded.getAbsolutePath());
+        }
 
-        OutputStream out = new FileOutputStream(statusFile);
+        if (null == fileInProgress) {
+            configuration.remove(FILE_IN_PROGRESS);
+            configuration.remove(LINES_COMMITTED);
+        } else {
+            configuration.setProperty(FILE_IN_PROGRESS, fileInProgress.getAbsolutePath());
+            configuration.setProperty(LINES_COMMITTED, "" + linesCommitted);
+        }
+
+        // write a new file and move it into place, so that a crash can't leave a truncated checkpoint
+        File tmpFile = new File(statusFile.getPath() + ".tmp");
+        OutputStream out = new FileOutputStream(tmpFile);
         try {
             configuration.store(out, "GitHub Archive loader state");
         } finally {
             out.close();
         }
+
+        if (!tmpFile.renameTo(statusFile)) {
+            // some platforms won't rename over an existing file
+            if (!statusFile.delete() || !tmpFile.renameTo(statusFile)) {
+                throw new IOException("failed to replace status file " + statusFile);
+            }
+        }
     }
 
     /**
@@ -131,7 +527,22 @@ public class GithubLoader {
     }
 
     /**
-     * Loads a GitHub Archive event dump file, or a directory containing event dumps
+     * @return the graph to which events are written
+     */
+    Graph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return an off-heap replica of the edges of the in-memory graph, for time-ranged neighborhood queries,
+     * as of the end of the last load.  Null unless adjacencyStore is enabled, or before the first load
+     */
+    public AdjacencyStore getAdjacencyStore() {
+        return adjacencyStore;
+    }
+
+    /**
+     * Loads all GitHub Archive event dump files in the download directory which have not yet been loaded
      */
     public synchronized void loadFiles() throws Exception {
         if (null == downloadDirectory) {
@@ -140,92 +551,577 @@ public class GithubLoader {
 
         LOGGER.info("loading from " + downloadDirectory);
 
+        load(unloadedFiles().iterator());
+    }
+
+    /**
+     * Loads any event dump files already in the download directory, then downloads and loads the remaining hours
+     * from startHour through endHour (or the present).
+     * Each hour is loaded as soon as it has been downloaded, while later hours continue to download.
+     * In tail mode, this method does not return: it goes on to load each new hour as it is published,
+     * committing as configured and checkpointing after each hour, so that the loader may be stopped at any time.
+     */
+    public synchronized void downloadAndLoadFiles() throws Exception {
+        if (null == downloadDirectory) {
+            throw new IllegalStateException("" + DOWNLOAD_DIRECTORY + " must be set");
+        }
+
+        ArchiveDownloader downloader = createDownloader();
+        try {
+            load(Iterators.concat(unloadedFiles().iterator(), downloader));
+        } finally {
+            downloader.close();
+        }
+    }
+
+    private ArchiveDownloader createDownloader() throws IOException {
+        File dir = new File(downloadDirectory);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+
+        // continue from the last complete download; partial (.tmp) downloads are resumed, not discarded
+        GithubTimestamp firstHour = startHour;
+        List<File> files = sortedFiles(dir);
+        for (int i = files.size() - 1; i >= 0; i--) {
+            if (files.get(i).getName().endsWith(".json.gz")) {
+                GithubTimestamp lastTimestamp = new GithubTimestamp(files.get(i));
+                if (lastTimestamp.compareTo(firstHour) >= 0) {
+                    firstHour = lastTimestamp.nextHour();
+                }
+                break;
+            }
+        }
+
+        return new ArchiveDownloader(archiveUrl, dir, firstHour, endHour, downloadThreads, tailPollMillis);
+    }
+
+    private long load(final Iterator<File> files) throws Exception {
         try {
             long startTime = System.currentTimeMillis();
 
-            long count = loadRecursive(new File(downloadDirectory));
+            long count = pipeline
+                    ? loadPipelined(files)
+                    : loadThreads > 1 ? loadParallel(files) : loadSequential(files);
 
             long endTime = System.currentTimeMillis();
 
-            LOGGER.info("loaded " + count + " events in " + (endTime - startTime) + "ms");
+            LOGGER.info((null == bulkTarget ? "loaded " : "exported ") + count + " events in "
+                    + (endTime - startTime) + "ms");
+
+            if (null != bulkTarget) {
+                bulkImport();
+            }
+
+            if (null != snapshotFile) {
+                saveSnapshot();
+            }
+
+            if (buildAdjacencyStore) {
+                buildAdjacencyStore();
+            }
+
+            return count;
         } finally {
             rollback();
+
+            if (null != metrics) {
+                metrics.report();
+            }
         }
     }
 
     /**
-     * @param fileOrDirectory a line-delimited JSON file or a directory which contains (at any level)
-     *                        one or more line-delimited JSON files
-     *                        Files must be named with an appropriate extension, i.e. .json or .ldjson,
-     *                        or an appropriate extension followed by .gz if they are compressed with Gzip.
+     * Restores the in-memory graph from the snapshot, if there is one.
+     * The position in the archive is taken from the snapshot rather than from the status file,
+     * as anything loaded after the snapshot was taken was lost with the previous JVM.
      */
-    private long loadRecursive(final File fileOrDirectory) throws Exception {
-        if (fileOrDirectory.isDirectory()) {
-            long count = 0;
+    private void restoreSnapshot() throws IOException {
+        fileInProgress = null;
+        lastFileLoaded = null;
 
-            List<File> files = sortedFiles(fileOrDirectory);
+        if (snapshotFile.exists()) {
+            String s = GraphSnapshot.read(snapshotFile, graph).get(LAST_FILE_LOADED);
+            if (null != s) {
+                lastFileLoaded = new File(s);
+            }
+            LOGGER.info("restored graph from " + snapshotFile + "; resuming after " + lastFileLoaded);
+        }
+    }
 
-            for (File child : files) {
-                count += loadRecursive(child);
+    private void saveSnapshot() throws IOException {
+        Map<String, String> metadata = new HashMap<String, String>();
+        if (null != lastFileLoaded) {
+            metadata.put(LAST_FILE_LOADED, lastFileLoaded.getAbsolutePath());
+        }
+
+        GraphSnapshot.write(graph, metadata, snapshotFile);
+    }
+
+    private void buildAdjacencyStore() {
+        long startTime = System.currentTimeMillis();
+        AdjacencyStore.Builder builder = new AdjacencyStore.Builder();
+        long edges = builder.addGraph(graph);
+        adjacencyStore = builder.build();
+
+        LOGGER.info("replicated " + edges + " edges to adjacency store in "
+                + (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    /**
+     * Imports the bulk intermediate into the target graph.
+     * Files are checkpointed as they are exported, so the intermediate is kept until it has been imported;
+     * an interrupted import is completed by the next run.
+     */
+    private void bulkImport() throws IOException {
+        BulkExportGraph exportGraph = (BulkExportGraph) graph;
+        exportGraph.shutdown();
+
+        LOGGER.info("importing bulk intermediate from " + exportGraph.getDirectory());
+
+        // a fresh cache, as the handler's cache holds export vertices
+        VertexCache importCache = vertexCacheSize > 0 ? new LruVertexCache(vertexCacheSize) : null;
+        new BulkImporter(exportGraph.getDirectory(), exportGraph.getPartitions(), importCache).importInto(bulkTarget);
+
+        if (null != handler.getVertexCache()) {
+            handler.getVertexCache().clear();
+        }
+    }
+
+    private long loadSequential(final Iterator<File> files) throws Exception {
+        long count = 0;
+        while (files.hasNext()) {
+            File file = files.next();
+            if (isUnloaded(file)) {
+                count += loadFile(file);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * @param file a line-delimited JSON file.
+     *             Files must be named with an appropriate extension, i.e. .json or .ldjson,
+     *             or an appropriate extension followed by .gz if they are compressed with Gzip.
+     */
+    private long loadFile(final File file) throws Exception {
+        try {
+            long startTime = System.currentTimeMillis();
+            if (verbose) {
+                LOGGER.info("loading file: " + file);
+            }
+
+            InputStream is = openFile(file);
+            if (null == is) {
+                return 0;
             }
 
-            return count;
-        } else if (null == lastFileLoaded || fileComparator.compare(lastFileLoaded, fileOrDirectory) < 0) {
             try {
-                long startTime = System.currentTimeMillis();
-                if (verbose) {
-                    LOGGER.info("loading file: " + fileOrDirectory);
+                long firstLine = linesCommittedIn(file);
+                is = skipLines(is, firstLine);
+
+                long lineNo = null == streamingHandler
+                        ? handleLines(is, file, firstLine)
+                        : handleStream(is, file, firstLine);
+
+                fileCompleted(file, lineNo - firstLine, startTime);
+
+                return lineNo - firstLine;
+            } finally {
+                is.close();
+            }
+        } finally {
+            rollback();
+        }
+    }
+
+    /**
+     * Loads the given files, decompressing and parsing up to <code>loadThreads</code> files
+     * in parallel while a single writer applies their events to the graph in file order.
+     * Each file is read by a {@link BatchReader} of its own, which parses its batches itself and queues them for the
+     * writer, so that however large the files, at most about <code>pipelineQueueSize</code> batches are in flight.
+     * The checkpoint only ever advances past a file once all of its events have been committed.
+     */
+    private long loadParallel(final Iterator<File> files) throws Exception {
+        ExecutorService readers = Executors.newFixedThreadPool(loadThreads);
+        ExecutorService sameThread = MoreExecutors.sameThreadExecutor();
+        int queueSize = Math.max(1, pipelineQueueSize / loadThreads);
+
+        try {
+            long count = 0;
+            LinkedList<BlockingQueue<Future<Batch>>> pending = new LinkedList<BlockingQueue<Future<Batch>>>();
+
+            while (true) {
+                // keep a bounded window of files in flight
+                while (pending.size() < loadThreads && files.hasNext()) {
+                    File file = files.next();
+                    if (isUnloaded(file)) {
+                        BlockingQueue<Future<Batch>> batches = new ArrayBlockingQueue<Future<Batch>>(queueSize);
+                        readers.execute(new BatchReader(Iterators.singletonIterator(file), sameThread, batches));
+                        pending.add(batches);
+                    }
                 }
-                String fileName = fileOrDirectory.getName();
-                InputStream is;
-                if (fileName.endsWith(".gz")) {
-                    is = new GZIPInputStream(new FileInputStream(fileOrDirectory));
-                    fileName = fileName.substring(0, fileName.lastIndexOf("."));
-                } else {
-                    is = new FileInputStream(fileOrDirectory);
+
+                if (pending.isEmpty()) {
+                    return count;
                 }
 
-                try {
-                    if (!fileName.endsWith(".json") && !fileName.endsWith(".ldjson")) {
-                        LOGGER.warning("file does not appear to be line-delimited JSON: " + fileName);
-                        return 0;
-                    }
+                Batch batch = take(pending.getFirst());
+                if (null == batch.file) {
+                    // the end of the file, or of a file which could not be loaded
+                    pending.removeFirst();
+                    continue;
+                }
 
-                    BufferedReader br = new BufferedReader(new InputStreamReader(is));
-                    String line;
-                    long lineNo = 0;
-                    while (null != (line = br.readLine())) {
-                        lineNo++;
+                long lineNo = writeBatch(batch);
+                if (batch.lastInFile) {
+                    fileCompleted(batch.file, lineNo - batch.fileFirstLine, batch.startTime);
+                    count += lineNo - batch.fileFirstLine;
+                }
+            }
+        } finally {
+            // make room for the readers, should they be blocked on full queues
+            readers.shutdownNow();
+            rollback();
+        }
+    }
 
-                        try {
-                            parseGithubJson(line.trim());
-                        } catch (Exception e) {
-                            LOGGER.severe("error on line " + lineNo + " in " + fileName);
-                            throw e;
-                        }
+    /**
+     * Loads the given files through a pipeline of stages connected by bounded queues.
+     * A reader thread splits each decompressed file (see {@link ReadAheadInputStream}) into batches of lines,
+     * a pool of <code>parseThreads</code> parsers selects and binds the events of each batch,
+     * and the calling thread writes the events to the graph, in order.
+     * At most <code>pipelineQueueSize</code> batches are in flight, so that a slow writer blocks the reader
+     * rather than letting batches accumulate, and a slow reader leaves the writer waiting;
+     * the throughput of the pipeline is that of its slowest stage.
+     */
+    private long loadPipelined(final Iterator<File> files) throws Exception {
+        BlockingQueue<Future<Batch>> batches = new ArrayBlockingQueue<Future<Batch>>(pipelineQueueSize);
+        if (null != metrics) {
+            metrics.registerQueue("parsed", batches);
+        }
+
+        ExecutorService parsers = Executors.newFixedThreadPool(parseThreads);
+        Thread reader = new Thread(new BatchReader(files, parsers, batches), "pipeline-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        ShardedWriter shardedWriter = null == shardHandlers
+                ? null
+                : new ShardedWriter(shardHandlers, shardedGraph, metrics);
+
+        try {
+            long count = 0;
+            while (true) {
+                Batch batch = take(batches);
+                if (null == batch.file) {
+                    return count;
+                }
+
+                if (null != shardedWriter) {
+                    long lineNo = writeSharded(shardedWriter, batch);
+                    if (batch.lastInFile) {
+                        fileCompleted(batch.file, lineNo - batch.fileFirstLine, batch.startTime);
+                        count += lineNo - batch.fileFirstLine;
                     }
+                    continue;
+                }
+
+                long lineNo = writeBatch(batch);
+                if (batch.lastInFile) {
+                    fileCompleted(batch.file, lineNo - batch.fileFirstLine, batch.startTime);
+                    count += lineNo - batch.fileFirstLine;
+                }
+            }
+        } finally {
+            // make room for the reader, should it be blocked on a full queue
+            reader.interrupt();
+            batches.clear();
+            parsers.shutdownNow();
+            if (null != shardedWriter) {
+                shardedWriter.close();
+            }
+            rollback();
+        }
+    }
+
+    private static Batch take(final BlockingQueue<Future<Batch>> batches) throws Exception {
+        try {
+            return batches.take().get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * Writes the events of a batch with the single handler, committing and checkpointing as the policy calls for
+     *
+     * @return the number of the last line handled
+     */
+    private long writeBatch(final Batch batch) throws Exception {
+        long lineNo = batch.firstLine;
+        for (Event event : batch.events) {
+            lineNo++;
+
+            // null is a placeholder for a rejected event
+            if (null != event) {
+                long start = null == metrics ? 0 : System.nanoTime();
+                try {
+                    handler.handle(event);
+                } catch (Exception e) {
+                    LOGGER.severe("error on line " + lineNo + " in " + batch.file.getName());
+                    throw e;
+                }
+
+                if (null != metrics) {
+                    metrics.handled(start);
+                }
+            }
+
+            eventHandled(batch.file, lineNo);
+        }
+
+        return lineNo;
+    }
+
+    /**
+     * Writes a batch with the sharded writer, which commits every shard, then checkpoints at the end of the batch
+     *
+     * @return the number of the last line handled
+     */
+    private long writeSharded(final ShardedWriter shardedWriter,
+                              final Batch batch) throws Exception {
+        try {
+            shardedWriter.write(batch.events);
+        } catch (Exception e) {
+            LOGGER.severe("error in lines " + (batch.firstLine + 1) + " to " + (batch.firstLine + batch.events.size())
+                    + " of " + batch.file.getName());
+            throw e;
+        }
+
+        long lineNo = batch.firstLine + batch.events.size();
+        fileInProgress = batch.file;
+        linesCommitted = lineNo;
+        saveConfiguration();
+        return lineNo;
+    }
+
+    /**
+     * @return the number of the last line handled
+     */
+    private long handleLines(final InputStream is,
+                             final File file,
+                             final long firstLine) throws Exception {
+        LineSplitter lines = new LineSplitter(is);
+        long lineNo = firstLine;
+        while (lines.next()) {
+            lineNo++;
+
+            try {
+                if (accepts(lines)) {
+                    parseGithubJson(lines.getBuffer(), lines.getStart(), lines.getLength());
+                }
+            } catch (Exception e) {
+                LOGGER.severe("error on line " + lineNo + " in " + file.getName());
+                throw e;
+            }
 
-                    long endTime = System.currentTimeMillis();
-                    if (verbose) {
-                        LOGGER.info("\timported " + lineNo + " events in " + (endTime - startTime) + "ms"
-                                + (endTime > startTime ? " (" + (lineNo * 1000 / (endTime - startTime)) + " events/s)" : ""));
+            eventHandled(file, lineNo);
+        }
+
+        return lineNo;
+    }
+
+    // events are selected from the raw line, so that rejected events are never bound
+    private boolean accepts(final LineSplitter lines) throws IOException {
+        return accepts(lines.getBuffer(), lines.getStart(), lines.getLength());
+    }
+
+    private boolean accepts(final byte[] json,
+                            final int start,
+                            final int length) throws IOException {
+        return null == eventFilter || !eventFilter.selectsEvents()
+                || eventFilter.accepts(objectMapper.getFactory(), json, start, length);
+    }
+
+    /**
+     * @return the number of the last line handled
+     */
+    private long handleStream(final InputStream is,
+                              final File file,
+                              final long firstLine) throws Exception {
+        JsonParser parser = streamingHandler.createParser(is);
+        try {
+            long lineNo = firstLine;
+            while (true) {
+                try {
+                    if (!streamingHandler.handleNext(parser)) {
+                        break;
                     }
+                } catch (Exception e) {
+                    LOGGER.severe("error on line " + (firstLine + streamingHandler.getLineNumber())
+                            + " in " + file.getName());
+                    throw e;
+                }
 
-                    lastFileLoaded = fileOrDirectory;
-                    saveConfiguration();
+                lineNo = firstLine + streamingHandler.getLineNumber();
+                eventHandled(file, lineNo);
+            }
 
-                    commit();
+            return lineNo;
+        } finally {
+            parser.close();
+        }
+    }
 
-                    return lineNo;
-                } finally {
-                    is.close();
+    /**
+     * @return the number of lines of the given file which have already been loaded and committed,
+     * if the file was interrupted in a previous run, otherwise 0
+     */
+    private long linesCommittedIn(final File file) {
+        return null != fileInProgress && 0 == fileComparator.compare(fileInProgress, file) ? linesCommitted : 0;
+    }
+
+    /**
+     * Skips the given number of lines without decoding or parsing them.
+     * Lines are terminated by newlines only, as they are counted by both {@link LineSplitter} and
+     * {@link StreamingEventHandler#getLineNumber()}, so a carriage return is just another byte of its line.
+     *
+     * @return a stream positioned at the beginning of the next line
+     */
+    private static InputStream skipLines(final InputStream is,
+                                         final long lines) throws IOException {
+        if (0 == lines) {
+            return is;
+        }
+
+        byte[] buffer = new byte[65536];
+        PushbackInputStream pis = new PushbackInputStream(is, buffer.length);
+        long remaining = lines;
+        boolean partialLine = false;
+        int n;
+        while ((n = pis.read(buffer)) > 0) {
+            for (int i = 0; i < n; i++) {
+                if ('\n' == buffer[i] && 0 == --remaining) {
+                    pis.unread(buffer, i + 1, n - i - 1);
+                    return pis;
                 }
-            } finally {
-                rollback();
             }
-        } else {
-            return 0;
+            partialLine = '\n' != buffer[n - 1];
+        }
+
+        // the last line need not be terminated, but it must be there
+        if (1 == remaining && partialLine) {
+            return pis;
+        }
+
+        throw new IOException("expected at least " + lines + " lines");
+    }
+
+    /**
+     * Commits and checkpoints in the middle of a file if the commit policy calls for it
+     */
+    private void eventHandled(final File file,
+                              final long lineNo) throws IOException {
+        if (commitPolicy.eventHandled()) {
+            commit();
+
+            fileInProgress = file;
+            linesCommitted = lineNo;
+            saveConfiguration();
+        }
+    }
+
+    private List<File> unloadedFiles() {
+        List<File> files = new LinkedList<File>();
+        File dir = new File(downloadDirectory);
+        if (dir.exists()) {
+            collectUnloadedFiles(dir, files);
+        }
+        return files;
+    }
+
+    private void collectUnloadedFiles(final File fileOrDirectory,
+                                      final List<File> files) {
+        if (fileOrDirectory.isDirectory()) {
+            for (File child : sortedFiles(fileOrDirectory)) {
+                collectUnloadedFiles(child, files);
+            }
+        } else if (isUnloaded(fileOrDirectory) && !fileOrDirectory.getName().endsWith(".tmp")) {
+            files.add(fileOrDirectory);
+        }
+    }
+
+    private boolean isUnloaded(final File file) {
+        return null == lastFileLoaded || fileComparator.compare(lastFileLoaded, file) < 0;
+    }
+
+    /**
+     * @return a stream of the (decompressed) contents of the file,
+     * or null if the file does not appear to be line-delimited JSON
+     */
+    private InputStream openFile(final File file) throws IOException {
+        String fileName = file.getName();
+        boolean gzipped = fileName.endsWith(".gz");
+        if (gzipped) {
+            fileName = fileName.substring(0, fileName.lastIndexOf("."));
+        }
+
+        if (!fileName.endsWith(".json") && !fileName.endsWith(".ldjson")) {
+            LOGGER.warning("file does not appear to be line-delimited JSON: " + fileName);
+            return null;
+        }
+
+        InputStream is = new FileInputStream(file);
+        if (gzipped) {
+            is = new GZIPInputStream(is, GZIP_BUFFER_SIZE);
+        }
+
+        // decompress on a separate thread, while the previous chunk is being parsed and written
+        if (readAheadBuffers > 0) {
+            is = new ReadAheadInputStream(is, readAheadBuffers, READ_AHEAD_CHUNK_SIZE);
+        }
+
+        return null == metrics ? is : metrics.timeReads(is);
+    }
+
+    private void fileCompleted(final File file,
+                               final long lineNo,
+                               final long startTime) throws IOException {
+        long endTime = System.currentTimeMillis();
+        if (verbose) {
+            LOGGER.info("\timported " + lineNo + " events in " + (endTime - startTime) + "ms"
+                    + (endTime > startTime ? " (" + (lineNo * 1000 / (endTime - startTime)) + " events/s)" : ""));
         }
+
+        if (verbose && null != handler.getVertexCache()) {
+            LOGGER.info("\t" + handler.getVertexCache());
+        }
+
+        if (verbose && null != handler.getStringDictionary()) {
+            LOGGER.info("\t" + handler.getStringDictionary());
+        }
+
+        if (verbose && null != handler.getPropertyFingerprints()) {
+            LOGGER.info("\t" + handler.getPropertyFingerprints());
+        }
+
+        if (verbose && null != eventFilter && eventFilter.selectsEvents()) {
+            LOGGER.info("\t" + eventFilter);
+        }
+
+        if (verbose && handler.getProxiesCreated() > 0) {
+            LOGGER.info("\t" + handler.getProxiesCreated() + " supernode proxies created");
+        }
+
+        // commit before checkpointing, so that a crash can never skip over uncommitted events
+        commit();
+
+        lastFileLoaded = file;
+        fileInProgress = null;
+        saveConfiguration();
     }
 
     private List<File> sortedFiles(final File dir) {
@@ -235,83 +1131,239 @@ public class GithubLoader {
         return files;
     }
 
-    private void parseGithubJson(final String jsonStr) throws IOException, IllegalAccessException {
-        Event event = objectMapper.readValue(jsonStr, Event.class);
+    private void parseGithubJson(final byte[] json,
+                                 final int start,
+                                 final int length) throws IOException, IllegalAccessException {
+        long parseStart = null == metrics ? 0 : System.nanoTime();
+
+        // Jackson decodes the UTF-8 bytes itself, so no intermediate String is created
+        Event event = objectMapper.readValue(json, start, length, Event.class);
         //System.out.println("got event: " + event);
 
+        if (null != metrics) {
+            metrics.parsed(parseStart);
+        }
+
+        long handleStart = null == metrics ? 0 : System.nanoTime();
         handler.handle(event);
+        if (null != metrics) {
+            metrics.handled(handleStart);
+        }
     }
 
-    private void commit() {
-        if (graph instanceof TransactionalGraph) {
-            ((TransactionalGraph) graph).commit();
+    /**
+     * A batch of consecutive lines of a file, first as raw bytes, then as events
+     */
+    private static class Batch {
+        // null in the batch which marks the end of the input
+        private final File file;
+        // the number of lines of the file before this batch, and before the first line loaded in this run
+        private final long firstLine;
+        private final long fileFirstLine;
+        private final long startTime;
+
+        private byte[] data = new byte[1 << 16];
+        private int[] offsets = new int[64];
+        private int lines;
+        private int length;
+        private boolean lastInFile;
+
+        private List<Event> events;
+
+        private Batch(final File file,
+                      final long firstLine,
+                      final long fileFirstLine,
+                      final long startTime) {
+            this.file = file;
+            this.firstLine = firstLine;
+            this.fileFirstLine = fileFirstLine;
+            this.startTime = startTime;
         }
-    }
 
-    private void rollback() {
-        if (graph instanceof TransactionalGraph) {
-            ((TransactionalGraph) graph).commit();
+        private void add(final byte[] line,
+                         final int start,
+                         final int lineLength) {
+            if (length + lineLength > data.length) {
+                byte[] d = new byte[Math.max(data.length * 2, length + lineLength)];
+                System.arraycopy(data, 0, d, 0, length);
+                data = d;
+            }
+            if (lines + 1 == offsets.length) {
+                int[] o = new int[offsets.length * 2];
+                System.arraycopy(offsets, 0, o, 0, lines + 1);
+                offsets = o;
+            }
+
+            System.arraycopy(line, start, data, length, lineLength);
+            length += lineLength;
+            offsets[++lines] = length;
         }
     }
 
-    private void downloadFiles() throws IOException {
-        if (null == downloadDirectory) {
-            throw new IllegalStateException("" + DOWNLOAD_DIRECTORY + " must be set");
-        }
+    /**
+     * The first stage of the pipeline: splits files into batches of lines, and hands each batch to a parser.
+     * The future of each parsed batch is queued in order, blocking while the queue is full.
+     * When loading files in parallel, each file has a reader of its own, which parses its batches on its own thread.
+     */
+    private class BatchReader implements Runnable {
+        private final Iterator<File> files;
+        private final ExecutorService parsers;
+        private final BlockingQueue<Future<Batch>> batches;
 
-        File dir = new File(downloadDirectory);
-        if (!dir.exists()) {
-            dir.mkdirs();
-        }
+        // the reader runs ahead of the writer, so it decides which files and lines to skip from the status
+        // as of its creation
+        private final File lastLoaded;
+        private final File resumeFile;
+        private final long resumeLines;
 
-        for (File f : dir.listFiles()) {
-            if (f.getName().endsWith(".tmp")) {
-                f.delete();
-            }
+        private BatchReader(final Iterator<File> files,
+                            final ExecutorService parsers,
+                            final BlockingQueue<Future<Batch>> batches) {
+            this.files = files;
+            this.parsers = parsers;
+            this.batches = batches;
+
+            lastLoaded = lastFileLoaded;
+            resumeFile = fileInProgress;
+            resumeLines = linesCommitted;
         }
 
-        List<File> files = sortedFiles(dir);
-        if (files.size() > 0) {
-            GithubTimestamp lastTimestamp = new GithubTimestamp(files.get(files.size() - 1));
+        public void run() {
+            try {
+                while (files.hasNext()) {
+                    File file = files.next();
+                    if (null == lastLoaded || fileComparator.compare(lastLoaded, file) < 0) {
+                        readFile(file);
+                    }
+                }
 
-            if (lastTimestamp.compareTo(startHour) >= 0) {
-                startHour = lastTimestamp.nextHour();
+                batches.put(done(new Batch(null, 0, 0, 0)));
+            } catch (InterruptedException e) {
+                // the writer has stopped
+            } catch (final Exception e) {
+                try {
+                    batches.put(parsers.submit(new Callable<Batch>() {
+                        public Batch call() throws Exception {
+                            throw e;
+                        }
+                    }));
+                } catch (InterruptedException e2) {
+                    // the writer has stopped
+                }
             }
         }
 
-        GithubTimestamp cur = startHour;
-        while (true) {
-            long now = System.currentTimeMillis();
-            long curTime = cur.getTime();
-            if (curTime > now || (null != endHour && cur.compareTo(endHour) > 0)) {
-                break;
+        private void readFile(final File file) throws IOException, InterruptedException {
+            long startTime = System.currentTimeMillis();
+            if (verbose) {
+                LOGGER.info("reading file: " + file);
             }
 
-            URL url = new URL("http://data.githubarchive.org/" + cur + ".json.gz");
-            File f = new File(downloadDirectory, "" + cur + ".json.gz.tmp");
+            InputStream is = openFile(file);
+            if (null == is) {
+                return;
+            }
 
-            LOGGER.info("downloading " + url);
-            ReadableByteChannel rbc;
             try {
-                rbc = Channels.newChannel(url.openStream());
-            } catch (FileNotFoundException e) {
-                LOGGER.info("no such file: " + url + " ");
+                long firstLine = null != resumeFile && 0 == fileComparator.compare(resumeFile, file)
+                        ? resumeLines : 0;
+                is = skipLines(is, firstLine);
+
+                LineSplitter lines = new LineSplitter(is);
+                long lineNo = firstLine;
+                Batch batch = new Batch(file, lineNo, firstLine, startTime);
+                while (lines.next()) {
+                    if (pipelineBatchSize == batch.lines) {
+                        batches.put(parsers.submit(new BatchParser(batch)));
+                        batch = new Batch(file, lineNo, firstLine, startTime);
+                    }
 
-                // just skip; there are missing hours in the archive
-                continue;
+                    batch.add(lines.getBuffer(), lines.getStart(), lines.getLength());
+                    lineNo++;
+                }
+
+                batch.lastInFile = true;
+                batches.put(parsers.submit(new BatchParser(batch)));
             } finally {
-                cur = cur.nextHour();
+                is.close();
             }
+        }
 
-            FileOutputStream fos = new FileOutputStream(f);
-            try {
-                fos.getChannel().transferFrom(rbc, 0, Long.MAX_VALUE);
-            } finally {
-                fos.close();
+        private Future<Batch> done(final Batch batch) {
+            FutureTask<Batch> f = new FutureTask<Batch>(new Callable<Batch>() {
+                public Batch call() {
+                    return batch;
+                }
+            });
+            f.run();
+            return f;
+        }
+    }
+
+    /**
+     * The second stage of the pipeline: selects and binds the events of a batch
+     */
+    private class BatchParser implements Callable<Batch> {
+        private final Batch batch;
+
+        private BatchParser(final Batch batch) {
+            this.batch = batch;
+        }
+
+        public Batch call() throws Exception {
+            List<Event> events = new ArrayList<Event>(batch.lines);
+            for (int i = 0; i < batch.lines; i++) {
+                int start = batch.offsets[i];
+                int length = batch.offsets[i + 1] - start;
+
+                long parseStart = null == metrics ? 0 : System.nanoTime();
+                try {
+                    events.add(accepts(batch.data, start, length)
+                            ? objectMapper.readValue(batch.data, start, length, Event.class) : null);
+                } catch (IOException e) {
+                    LOGGER.severe("error on line " + (batch.firstLine + i + 1) + " in " + batch.file.getName());
+                    throw e;
+                }
+
+                if (null != metrics) {
+                    metrics.parsed(parseStart);
+                }
             }
 
-            File f2 = new File(downloadDirectory, "" + cur + ".json.gz");
-            f.renameTo(f2);
+            batch.events = events;
+            batch.data = null;
+            batch.offsets = null;
+            return batch;
+        }
+    }
+
+    private void commit() {
+        if (graph instanceof TransactionalGraph) {
+            long start = null == metrics ? 0 : System.nanoTime();
+            ((TransactionalGraph) graph).commit();
+            if (null != metrics) {
+                metrics.committed(start);
+            }
+        }
+
+        handler.committed();
+        commitPolicy.committed();
+    }
+
+    private void rollback() {
+        // BatchGraph and BulkExportGraph refuse to roll back.  Any events they have not yet committed
+        // are left uncommitted, as committing them here would put the graph ahead of the checkpoint.
+        if (graph instanceof TransactionalGraph
+                && !(graph instanceof BatchGraph) && !(graph instanceof BulkExportGraph)) {
+            ((TransactionalGraph) graph).rollback();
+        }
+
+        // any values recorded as written since the last commit are now rolled back, or at least not committed
+        handler.rolledBack();
+        if (null != shardHandlers) {
+            for (EventHandler h : shardHandlers) {
+                h.rolledBack();
+            }
         }
     }
 
@@ -331,9 +1383,7 @@ public class GithubLoader {
             GithubLoader loader = new GithubLoader(config);
             loader.setVerbose(true);
 
-            loader.downloadFiles();
-
-            loader.loadFiles();
+            loader.downloadAndLoadFiles();
         } catch (Throwable t) {
             t.printStackTrace(System.err);
             System.exit(1);
@@ -37,6 +37,7 @@ public interface GithubSchema {
             TYPE_COMMENT = "Comment",
             TYPE_EVENT = "Event",
             TYPE_PAGE = "Page",
+            TYPE_PROXY = "Proxy",
             TYPE_PULL_REQUEST = "PullRequest",
             TYPE_RELEASE = "Release",
             TYPE_REPOSITORY = "Repository",
@@ -48,6 +49,7 @@ public interface GithubSchema {
         comment,
         member,
         page,
+        proxy_of,
         pull_request,
         release,
         repository,
@@ -0,0 +1,407 @@
+package com.tinkerpop.etc.github;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * A compact binary snapshot of a graph, so that an in-memory graph can be restored in seconds
+ * rather than re-loaded from the archive.
+ * A snapshot consists of
+ * <ol>
+ * <li>a header, with string metadata such as the last file loaded</li>
+ * <li>a dictionary of all property keys, labels and string values, each stored once</li>
+ * <li>the vertices, each with its ID and properties</li>
+ * <li>a block of edges for each label, in which each edge refers to its vertices by their position in the
+ * snapshot</li>
+ * </ol>
+ * All integers, including IDs, are variable-length, and strings are references into the dictionary.
+ * Snapshots are read through a memory-mapped window.
+ * Vertex and edge IDs must be numeric.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class GraphSnapshot {
+    private static final Logger LOGGER = Logger.getLogger(GraphSnapshot.class.getName());
+
+    private static final int MAGIC = 0x47485350;
+    private static final int VERSION = 1;
+
+    private static final byte
+            STRING = 0,
+            LONG = 1,
+            INTEGER = 2,
+            TRUE = 3,
+            FALSE = 4;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int WINDOW_SIZE = 1 << 28;
+
+    private GraphSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of the given graph, replacing the given file only once the snapshot is complete.
+     * The dictionary is built in memory before anything is written, so for the whole of the write, a HashMap holds
+     * every distinct string value of the graph, including the many which occur only once, such as commit messages
+     * and SHAs.  The strings themselves are shared with the graph, but each entry costs some 60 bytes, so for a graph
+     * of mostly unique strings, allow for peak heap of up to twice that of the graph.
+     *
+     * @param metadata arbitrary information to store with the snapshot
+     */
+    public static void write(final Graph graph,
+                             final Map<String, String> metadata,
+                             final File file) throws IOException {
+        long startTime = System.currentTimeMillis();
+
+        // first pass: collect strings and labels
+        Dictionary dictionary = new Dictionary();
+        for (Map.Entry<String, String> e : metadata.entrySet()) {
+            dictionary.add(e.getKey());
+            dictionary.add(e.getValue());
+        }
+        long vertexCount = 0;
+        for (Vertex v : graph.getVertices()) {
+            addStrings(v, dictionary);
+            vertexCount++;
+        }
+        Map<String, Long> labelCounts = new LinkedHashMap<String, Long>();
+        for (Edge e : graph.getEdges()) {
+            Long count = labelCounts.get(e.getLabel());
+            labelCounts.put(e.getLabel(), null == count ? 1 : count + 1);
+            addStrings(e, dictionary);
+        }
+        for (String label : labelCounts.keySet()) {
+            dictionary.add(label);
+        }
+
+        File tmpFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmpFile), BUFFER_SIZE));
+        long edgeCount = 0;
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            writeVarLong(out, metadata.size());
+            for (Map.Entry<String, String> e : metadata.entrySet()) {
+                writeVarLong(out, dictionary.indexOf(e.getKey()));
+                writeVarLong(out, dictionary.indexOf(e.getValue()));
+            }
+
+            writeVarLong(out, dictionary.strings.size());
+            for (String s : dictionary.strings) {
+                byte[] bytes = s.getBytes(UTF8);
+                writeVarLong(out, bytes.length);
+                out.write(bytes);
+            }
+
+            // vertices, numbered in the order written
+            LongIntMap ordinals = new LongIntMap((int) Math.min(vertexCount, Integer.MAX_VALUE));
+            writeVarLong(out, vertexCount);
+            int ordinal = 0;
+            for (Vertex v : graph.getVertices()) {
+                long id = toLong(v.getId());
+                ordinals.put(id, ordinal++);
+                writeVarLong(out, id);
+                writeProperties(out, v, dictionary);
+            }
+            if (ordinal != vertexCount) {
+                throw new IllegalStateException("graph was modified while writing snapshot");
+            }
+
+            // one block of edges per label
+            writeVarLong(out, labelCounts.size());
+            for (Map.Entry<String, Long> l : labelCounts.entrySet()) {
+                writeVarLong(out, dictionary.indexOf(l.getKey()));
+                writeVarLong(out, l.getValue());
+
+                long count = 0;
+                for (Vertex v : graph.getVertices()) {
+                    int outOrdinal = ordinals.get(toLong(v.getId()));
+                    for (Edge e : v.getEdges(Direction.OUT, l.getKey())) {
+                        writeVarLong(out, toLong(e.getId()));
+                        writeVarLong(out, outOrdinal);
+                        writeVarLong(out, ordinals.get(toLong(e.getVertex(Direction.IN).getId())));
+                        writeProperties(out, e, dictionary);
+                        count++;
+                    }
+                }
+                if (count != l.getValue()) {
+                    throw new IllegalStateException("graph was modified while writing snapshot");
+                }
+                edgeCount += count;
+            }
+        } finally {
+            out.close();
+        }
+
+        if (!tmpFile.renameTo(file)) {
+            // some platforms won't rename over an existing file
+            if (!file.delete() || !tmpFile.renameTo(file)) {
+                throw new IOException("failed to replace snapshot " + file);
+            }
+        }
+
+        LOGGER.info("wrote snapshot of " + vertexCount + " vertices and " + edgeCount + " edges to " + file
+                + " in " + (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    /**
+     * Adds the contents of a snapshot to the given graph, which should be empty
+     *
+     * @return the metadata stored with the snapshot
+     */
+    public static Map<String, String> read(final File file,
+                                           final Graph target) throws IOException {
+        long startTime = System.currentTimeMillis();
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            Reader in = new Reader(raf.getChannel());
+
+            if (MAGIC != in.readInt()) {
+                throw new IOException("not a graph snapshot: " + file);
+            }
+            int version = in.readInt();
+            if (VERSION != version) {
+                throw new IOException("unsupported snapshot version " + version + " in " + file);
+            }
+
+            int metadataSize = (int) in.readVarLong();
+            int[] metadataIndices = new int[metadataSize * 2];
+            for (int i = 0; i < metadataIndices.length; i++) {
+                metadataIndices[i] = (int) in.readVarLong();
+            }
+
+            String[] strings = new String[(int) in.readVarLong()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = in.readString((int) in.readVarLong());
+            }
+
+            Map<String, String> metadata = new LinkedHashMap<String, String>();
+            for (int i = 0; i < metadataSize; i++) {
+                metadata.put(strings[metadataIndices[2 * i]], strings[metadataIndices[2 * i + 1]]);
+            }
+
+            long[] vertexIds = new long[(int) in.readVarLong()];
+            for (int i = 0; i < vertexIds.length; i++) {
+                vertexIds[i] = in.readVarLong();
+                readProperties(in, target.addVertex(vertexIds[i]), strings);
+            }
+
+            long edgeCount = 0;
+            long labelCount = in.readVarLong();
+            for (long l = 0; l < labelCount; l++) {
+                String label = strings[(int) in.readVarLong()];
+                long count = in.readVarLong();
+                for (long i = 0; i < count; i++) {
+                    long id = in.readVarLong();
+                    Vertex outVertex = target.getVertex(vertexIds[(int) in.readVarLong()]);
+                    Vertex inVertex = target.getVertex(vertexIds[(int) in.readVarLong()]);
+                    readProperties(in, target.addEdge(id, outVertex, inVertex, label), strings);
+                }
+                edgeCount += count;
+            }
+
+            LOGGER.info("read snapshot of " + vertexIds.length + " vertices and " + edgeCount + " edges from "
+                    + file + " in " + (System.currentTimeMillis() - startTime) + "ms");
+
+            return metadata;
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static void addStrings(final Element element,
+                                   final Dictionary dictionary) {
+        for (String key : element.getPropertyKeys()) {
+            dictionary.add(key);
+            Object value = element.getProperty(key);
+            if (value instanceof String) {
+                dictionary.add((String) value);
+            }
+        }
+    }
+
+    private static void writeProperties(final DataOutputStream out,
+                                        final Element element,
+                                        final Dictionary dictionary) throws IOException {
+        Set<String> keys = element.getPropertyKeys();
+        writeVarLong(out, keys.size());
+        for (String key : keys) {
+            writeVarLong(out, dictionary.indexOf(key));
+
+            Object value = element.getProperty(key);
+            if (value instanceof String) {
+                out.writeByte(STRING);
+                writeVarLong(out, dictionary.indexOf((String) value));
+            } else if (value instanceof Long) {
+                out.writeByte(LONG);
+                writeVarLong(out, zigZag((Long) value));
+            } else if (value instanceof Integer) {
+                out.writeByte(INTEGER);
+                writeVarLong(out, zigZag((Integer) value));
+            } else if (value instanceof Boolean) {
+                out.writeByte((Boolean) value ? TRUE : FALSE);
+            } else {
+                throw new IllegalArgumentException("unsupported value of property " + key + ": " + value);
+            }
+        }
+    }
+
+    private static void readProperties(final Reader in,
+                                       final Element element,
+                                       final String[] strings) throws IOException {
+        long count = in.readVarLong();
+        for (long i = 0; i < count; i++) {
+            String key = strings[(int) in.readVarLong()];
+            byte type = in.readByte();
+            Object value;
+            switch (type) {
+                case STRING:
+                    value = strings[(int) in.readVarLong()];
+                    break;
+                case LONG:
+                    value = unZigZag(in.readVarLong());
+                    break;
+                case INTEGER:
+                    value = (int) unZigZag(in.readVarLong());
+                    break;
+                case TRUE:
+                    value = true;
+                    break;
+                case FALSE:
+                    value = false;
+                    break;
+                default:
+                    throw new IOException("unknown value type: " + type);
+            }
+
+            element.setProperty(key, value);
+        }
+    }
+
+    private static long toLong(final Object id) {
+        return id instanceof Number ? ((Number) id).longValue() : Long.valueOf(id.toString());
+    }
+
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // seven bits at a time, low bits first; treats the value as unsigned
+    private static void writeVarLong(final DataOutputStream out,
+                                     final long value) throws IOException {
+        long v = value;
+        while (0 != (v & ~0x7FL)) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static class Dictionary {
+        private final Map<String, Integer> indices = new HashMap<String, Integer>();
+        private final List<String> strings = new ArrayList<String>();
+
+        private void add(final String s) {
+            if (!indices.containsKey(s)) {
+                indices.put(s, strings.size());
+                strings.add(s);
+            }
+        }
+
+        private int indexOf(final String s) {
+            return indices.get(s);
+        }
+    }
+
+    /**
+     * Reads a file through a memory-mapped window, which moves forward as the file is read
+     */
+    private static class Reader {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        private Reader(final FileChannel channel) throws IOException {
+            this.channel = channel;
+            size = channel.size();
+            map(0, 0);
+        }
+
+        private byte readByte() throws IOException {
+            require(1);
+            return window.get();
+        }
+
+        private int readInt() throws IOException {
+            require(4);
+            return window.getInt();
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if (0 == (b & 0x80)) {
+                    return value;
+                }
+            }
+
+            throw new IOException("malformed variable-length integer");
+        }
+
+        private String readString(final int length) throws IOException {
+            require(length);
+            byte[] bytes = new byte[length];
+            window.get(bytes);
+            return new String(bytes, UTF8);
+        }
+
+        private void require(final int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                map(windowStart + window.position(), bytes);
+            }
+        }
+
+        private void map(final long start,
+                         final int minimum) throws IOException {
+            if (start + minimum > size) {
+                throw new IOException("unexpected end of snapshot");
+            }
+
+            windowStart = start;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                    Math.min(size - start, Math.max(WINDOW_SIZE, minimum)));
+        }
+    }
+}
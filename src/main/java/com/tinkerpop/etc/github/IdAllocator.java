@@ -0,0 +1,59 @@
+package com.tinkerpop.etc.github;
+
+import com.thinkaurelius.titan.graphdb.idmanagement.IDManager;
+
+import java.util.Random;
+
+/**
+ * Hands out random, valid Titan vertex and relation IDs.
+ * Rather than drawing random longs until {@link com.thinkaurelius.titan.graphdb.idmanagement.IDInspector}
+ * accepts one, each ID is built directly from a random count, using the bit layout of {@link IDManager}
+ * (in the single partition the loader uses), so every ID costs the same small, fixed amount of work.
+ * <p/>
+ * The generator is a SplitMix64 sequence held in a single field, so an allocator is cheap but not thread-safe:
+ * each {@link EventHandler}, and so each writer thread, has its own, and no two threads ever contend for one.
+ * As before, uniqueness across allocators and runs is probabilistic; IDs are drawn from a space of 2^61 or more.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class IdAllocator {
+    private static final IDManager ID_MANAGER = new IDManager();
+
+    private static final long
+            MAX_VERTEX_COUNT = ID_MANAGER.getMaxVertexCount(),
+            MAX_RELATION_COUNT = ID_MANAGER.getMaxRelationCount();
+
+    private long state;
+
+    /**
+     * Creates an allocator with a seed which differs from one allocator, and one run, to the next
+     */
+    public IdAllocator() {
+        this(new Random().nextLong());
+    }
+
+    public IdAllocator(final long seed) {
+        state = seed;
+    }
+
+    /**
+     * @return a random vertex ID, which is positive
+     */
+    public long nextVertexId() {
+        return ID_MANAGER.getVertexID(1 + (next() >>> 1) % MAX_VERTEX_COUNT, 0);
+    }
+
+    /**
+     * @return a random relation (e.g. edge) ID, which is positive
+     */
+    public long nextRelationId() {
+        return ID_MANAGER.getRelationID(1 + (next() >>> 1) % MAX_RELATION_COUNT, 0);
+    }
+
+    private long next() {
+        long z = (state += 0x9e3779b97f4a7c15L);
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,211 @@
+package com.tinkerpop.etc.github;
+
+import com.codahale.metrics.ConsoleReporter;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms and counters for each stage of a load: reading (decompression, or waiting on the read-ahead
+ * thread), parsing, handling of events, edge writes per label, and commits; along with event counts per type and
+ * vertex cache statistics.
+ * Metrics may be exposed through JMX, under the domain "github", and periodically appended to a file.
+ * <p/>
+ * Each timing is a single call to {@link System#nanoTime()} before and after the measured operation,
+ * so that an enabled but unwatched registry costs little; a load without metrics has none of this overhead.
+ * Metrics are thread-safe.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class IngestMetrics {
+    private static final String DOMAIN = "github";
+
+    private final MetricRegistry registry = new MetricRegistry();
+
+    private final Timer read, parse, handle, commit;
+    private final Timer[] edgeWrites;
+    private final Map<String, Counter> eventTypes;
+    private final Counter otherEvents;
+
+    private JmxReporter jmxReporter;
+    private ConsoleReporter fileReporter;
+
+    public IngestMetrics() {
+        read = registry.timer(MetricRegistry.name("stage", "read"));
+        parse = registry.timer(MetricRegistry.name("stage", "parse"));
+        handle = registry.timer(MetricRegistry.name("stage", "handle"));
+        commit = registry.timer(MetricRegistry.name("stage", "commit"));
+
+        GithubSchema.Label[] labels = GithubSchema.Label.values();
+        edgeWrites = new Timer[labels.length];
+        for (GithubSchema.Label label : labels) {
+            edgeWrites[label.ordinal()] = registry.timer(MetricRegistry.name("edges", label.name()));
+        }
+
+        eventTypes = new HashMap<String, Counter>();
+        for (GithubSchema.EventType type : GithubSchema.EventType.values()) {
+            eventTypes.put(type.name(), registry.counter(MetricRegistry.name("events", type.name())));
+        }
+        otherEvents = registry.counter(MetricRegistry.name("events", "other"));
+    }
+
+    public MetricRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * @param start the value of {@link System#nanoTime()} at the start of a parse
+     */
+    public void parsed(final long start) {
+        parse.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param start the value of {@link System#nanoTime()} at the start of the handling of an event
+     */
+    public void handled(final long start) {
+        handle.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param start the value of {@link System#nanoTime()} at the start of a commit
+     */
+    public void committed(final long start) {
+        commit.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param start the value of {@link System#nanoTime()} before the edge was added
+     */
+    public void edgeWritten(final GithubSchema.Label label,
+                            final long start) {
+        edgeWrites[label.ordinal()].update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts an event of the given type, which may be null or unknown
+     */
+    public void eventOfType(final Object type) {
+        Counter c = null == type ? null : eventTypes.get(type.toString());
+        (null == c ? otherEvents : c).inc();
+    }
+
+    /**
+     * Adds gauges for the statistics of the given cache, under the given name, e.g. "vertexCache.hits"
+     */
+    public void register(final String name,
+                         final VertexCache cache) {
+        registry.register(MetricRegistry.name(name, "hits"), new Gauge<Long>() {
+            public Long getValue() {
+                return cache.getHits();
+            }
+        });
+        registry.register(MetricRegistry.name(name, "misses"), new Gauge<Long>() {
+            public Long getValue() {
+                return cache.getMisses();
+            }
+        });
+        registry.register(MetricRegistry.name(name, "evictions"), new Gauge<Long>() {
+            public Long getValue() {
+                return cache.getEvictions();
+            }
+        });
+        registry.register(MetricRegistry.name(name, "size"), new Gauge<Integer>() {
+            public Integer getValue() {
+                return cache.size();
+            }
+        });
+    }
+
+    /**
+     * Adds a gauge for the number of items in the given queue, e.g. between two stages of a pipeline,
+     * replacing any earlier queue of the same name
+     */
+    public void registerQueue(final String name,
+                              final Collection<?> queue) {
+        registry.remove(MetricRegistry.name("queue", name));
+        registry.register(MetricRegistry.name("queue", name), new Gauge<Integer>() {
+            public Integer getValue() {
+                return queue.size();
+            }
+        });
+    }
+
+    /**
+     * @return a stream which times each read from the given stream as the read stage
+     */
+    public InputStream timeReads(final InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                long start = System.nanoTime();
+                try {
+                    return super.read();
+                } finally {
+                    read.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            @Override
+            public int read(final byte[] b,
+                            final int off,
+                            final int len) throws IOException {
+                long start = System.nanoTime();
+                try {
+                    return super.read(b, off, len);
+                } finally {
+                    read.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+        };
+    }
+
+    /**
+     * Exposes all metrics as MBeans
+     */
+    public synchronized void startJmx() {
+        if (null == jmxReporter) {
+            jmxReporter = JmxReporter.forRegistry(registry).inDomain(DOMAIN)
+                    .convertDurationsTo(TimeUnit.MICROSECONDS).build();
+            jmxReporter.start();
+        }
+    }
+
+    /**
+     * Appends a report of all metrics to the given file at the given interval, on a daemon thread
+     */
+    public synchronized void startFileReport(final File file,
+                                             final long periodSeconds) throws FileNotFoundException {
+        if (null != fileReporter) {
+            throw new IllegalStateException("already reporting to a file");
+        }
+
+        PrintStream out = new PrintStream(new FileOutputStream(file, true));
+        fileReporter = ConsoleReporter.forRegistry(registry).outputTo(out)
+                .convertDurationsTo(TimeUnit.MICROSECONDS).build();
+        fileReporter.start(periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Appends a report to the file immediately, if reporting to a file
+     */
+    public synchronized void report() {
+        if (null != fileReporter) {
+            fileReporter.report();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.tinkerpop.etc.github;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Splits a stream into lines at the byte level, without decoding them into Strings.
+ * Each line is exposed as a range of an internal buffer which is only valid until the next call to {@link #next()}.
+ * As with String.trim, leading and trailing whitespace and control characters are excluded from the range.
+ * The encoding must be ASCII-compatible, as UTF-8 is.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class LineSplitter {
+    private final InputStream in;
+
+    private byte[] buffer = new byte[1 << 16];
+    private int limit;
+    private int lineStart, lineEnd;
+    private int next;
+    private boolean exhausted;
+
+    private int start, length;
+
+    public LineSplitter(final InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Advances to the next line
+     *
+     * @return whether there was another line
+     */
+    public boolean next() throws IOException {
+        lineStart = next;
+        int i = next;
+        while (true) {
+            while (i < limit) {
+                if ('\n' == buffer[i]) {
+                    lineEnd = i;
+                    next = i + 1;
+                    trim();
+                    return true;
+                }
+                i++;
+            }
+
+            if (exhausted) {
+                if (lineStart == limit) {
+                    return false;
+                }
+
+                // an unterminated last line
+                lineEnd = limit;
+                next = limit;
+                trim();
+                return true;
+            }
+
+            i -= lineStart;
+            compactAndRead();
+        }
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    private void trim() {
+        int s = lineStart, e = lineEnd;
+        while (s < e && (buffer[s] & 0xff) <= ' ') {
+            s++;
+        }
+        while (e > s && (buffer[e - 1] & 0xff) <= ' ') {
+            e--;
+        }
+
+        start = s;
+        length = e - s;
+    }
+
+    // moves the partial line to the front of the buffer, growing it if necessary, and reads more
+    private void compactAndRead() throws IOException {
+        int partial = limit - lineStart;
+        if (partial == buffer.length) {
+            byte[] b = new byte[buffer.length * 2];
+            System.arraycopy(buffer, lineStart, b, 0, partial);
+            buffer = b;
+        } else if (lineStart > 0) {
+            System.arraycopy(buffer, lineStart, buffer, 0, partial);
+        }
+        lineStart = 0;
+        next = 0;
+        limit = partial;
+
+        int n = in.read(buffer, limit, buffer.length - limit);
+        if (n < 0) {
+            exhausted = true;
+        } else {
+            limit += n;
+        }
+    }
+}
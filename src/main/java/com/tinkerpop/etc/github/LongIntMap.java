@@ -0,0 +1,126 @@
+package com.tinkerpop.etc.github;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from primitive long keys to non-negative int values, such as the slot of an element
+ * in a set of parallel arrays.  Neither lookups nor updates box keys or allocate.
+ * This class is not thread-safe.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+class LongIntMap {
+    static final int NONE = -1;
+
+    private long[] keys;
+    // NONE marks an empty slot
+    private int[] values;
+    private int mask;
+    private int size;
+
+    LongIntMap(final int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the value of the given key, or NONE if there is no such key
+     */
+    int get(final long key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            if (NONE == values[i]) {
+                return NONE;
+            } else if (key == keys[i]) {
+                return values[i];
+            }
+        }
+    }
+
+    void put(final long key,
+             final int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("negative value: " + value);
+        }
+
+        if ((size + 1) * 2 > values.length) {
+            resize(values.length * 2);
+        }
+
+        int i = slot(key);
+        while (NONE != values[i]) {
+            if (key == keys[i]) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    /**
+     * @return the former value of the given key, or NONE if there was no such key
+     */
+    int remove(final long key) {
+        int i = slot(key);
+        while (key != keys[i] || NONE == values[i]) {
+            if (NONE == values[i]) {
+                return NONE;
+            }
+            i = (i + 1) & mask;
+        }
+
+        int removed = values[i];
+        values[i] = NONE;
+        size--;
+
+        // shift back any following entries which would otherwise become unreachable
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (NONE == values[j]) {
+                return removed;
+            }
+
+            int home = slot(keys[j]);
+            boolean reachable = i <= j ? i < home && home <= j : i < home || home <= j;
+            if (!reachable) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                values[j] = NONE;
+                i = j;
+            }
+        }
+    }
+
+    private int slot(final long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NONE);
+        mask = capacity - 1;
+    }
+
+    private void resize(final int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (NONE != oldValues[i]) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
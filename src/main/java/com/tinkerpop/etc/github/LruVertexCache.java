@@ -0,0 +1,180 @@
+package com.tinkerpop.etc.github;
+
+import com.tinkerpop.blueprints.Vertex;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-capacity vertex cache with least-recently-used eviction.
+ * Entries live in preallocated parallel arrays with primitive long keys, so lookups neither box IDs nor allocate.
+ * This class is not thread-safe.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class LruVertexCache implements VertexCache {
+    private static final int NONE = -1;
+
+    private final int capacity;
+
+    // hash buckets, each the head of a chain of entries
+    private final int[] buckets;
+    private final int mask;
+
+    // entries
+    private final long[] ids;
+    private final Vertex[] vertices;
+    private final int[] chainNext;
+    private final int[] newer, older;
+
+    private int size;
+    private int newest = NONE, oldest = NONE;
+
+    private long hits, misses, evictions;
+
+    public LruVertexCache(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+
+        int bucketCount = Integer.highestOneBit(capacity) << 1;
+        buckets = new int[bucketCount];
+        mask = bucketCount - 1;
+        Arrays.fill(buckets, NONE);
+
+        ids = new long[capacity];
+        vertices = new Vertex[capacity];
+        chainNext = new int[capacity];
+        newer = new int[capacity];
+        older = new int[capacity];
+    }
+
+    public Vertex get(final long id) {
+        int i = find(id);
+        if (NONE == i) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        touch(i);
+        return vertices[i];
+    }
+
+    public void put(final long id,
+                    final Vertex vertex) {
+        int i = find(id);
+        if (NONE != i) {
+            vertices[i] = vertex;
+            touch(i);
+            return;
+        }
+
+        if (size < capacity) {
+            i = size++;
+        } else {
+            i = oldest;
+            unlinkFromBucket(i);
+            unlinkFromList(i);
+            evictions++;
+        }
+
+        ids[i] = id;
+        vertices[i] = vertex;
+        int b = bucket(id);
+        chainNext[i] = buckets[b];
+        buckets[b] = i;
+        pushNewest(i);
+    }
+
+    public void clear() {
+        Arrays.fill(buckets, NONE);
+        Arrays.fill(vertices, 0, size, null);
+        size = 0;
+        newest = oldest = NONE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public String toString() {
+        long lookups = hits + misses;
+        return "vertex cache: " + size + "/" + capacity + " vertices, " + hits + " hits, " + misses + " misses"
+                + (lookups > 0 ? " (" + (hits * 100 / lookups) + "% hit rate)" : "") + ", " + evictions + " evictions";
+    }
+
+    private int bucket(final long id) {
+        // the IDs are already hashes, but mix the high bits in anyway
+        return (int) (id ^ (id >>> 32)) & mask;
+    }
+
+    private int find(final long id) {
+        for (int i = buckets[bucket(id)]; NONE != i; i = chainNext[i]) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+
+        return NONE;
+    }
+
+    private void touch(final int i) {
+        if (newest != i) {
+            unlinkFromList(i);
+            pushNewest(i);
+        }
+    }
+
+    private void pushNewest(final int i) {
+        older[i] = newest;
+        newer[i] = NONE;
+        if (NONE != newest) {
+            newer[newest] = i;
+        }
+        newest = i;
+        if (NONE == oldest) {
+            oldest = i;
+        }
+    }
+
+    private void unlinkFromList(final int i) {
+        if (NONE == older[i]) {
+            oldest = newer[i];
+        } else {
+            newer[older[i]] = newer[i];
+        }
+
+        if (NONE == newer[i]) {
+            newest = older[i];
+        } else {
+            older[newer[i]] = older[i];
+        }
+    }
+
+    private void unlinkFromBucket(final int i) {
+        int b = bucket(ids[i]);
+        if (buckets[b] == i) {
+            buckets[b] = chainNext[i];
+        } else {
+            int prev = buckets[b];
+            while (chainNext[prev] != i) {
+                prev = chainNext[prev];
+            }
+            chainNext[prev] = chainNext[i];
+        }
+    }
+}
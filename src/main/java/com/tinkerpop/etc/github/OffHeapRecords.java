@@ -0,0 +1,94 @@
+package com.tinkerpop.etc.github;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A growable array of fixed-size records in direct (off-heap) memory, addressed by long index.
+ * Records are stored in segments of equal size, so the array is not limited to the 2GB of a single buffer,
+ * and no record spans two segments.
+ * Direct memory is limited by the JVM option -XX:MaxDirectMemorySize.
+ * This class is not thread-safe for writing.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+class OffHeapRecords {
+    private static final int SEGMENT_BITS = 20;
+    private static final int SEGMENT_MASK = (1 << SEGMENT_BITS) - 1;
+
+    private final int recordSize;
+    private final List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+    private long size;
+
+    private final byte[] swapA, swapB;
+
+    /**
+     * @param recordSize the size of each record, in bytes
+     */
+    OffHeapRecords(final int recordSize) {
+        this.recordSize = recordSize;
+        swapA = new byte[recordSize];
+        swapB = new byte[recordSize];
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * @return the index of a new record, with undefined contents
+     */
+    long append() {
+        if (size >>> SEGMENT_BITS == segments.size()) {
+            segments.add(ByteBuffer.allocateDirect(recordSize << SEGMENT_BITS));
+        }
+
+        return size++;
+    }
+
+    long getLong(final long record,
+                 final int field) {
+        return segment(record).getLong(offset(record) + field);
+    }
+
+    void putLong(final long record,
+                 final int field,
+                 final long value) {
+        segment(record).putLong(offset(record) + field, value);
+    }
+
+    int getInt(final long record,
+               final int field) {
+        return segment(record).getInt(offset(record) + field);
+    }
+
+    void putInt(final long record,
+                final int field,
+                final int value) {
+        segment(record).putInt(offset(record) + field, value);
+    }
+
+    void swap(final long a,
+              final long b) {
+        ByteBuffer sa = segment(a), sb = segment(b);
+        int oa = offset(a), ob = offset(b);
+
+        for (int i = 0; i < recordSize; i++) {
+            swapA[i] = sa.get(oa + i);
+            swapB[i] = sb.get(ob + i);
+        }
+        for (int i = 0; i < recordSize; i++) {
+            sa.put(oa + i, swapB[i]);
+            sb.put(ob + i, swapA[i]);
+        }
+    }
+
+    private ByteBuffer segment(final long record) {
+        return segments.get((int) (record >>> SEGMENT_BITS));
+    }
+
+    private int offset(final long record) {
+        return (int) (record & SEGMENT_MASK) * recordSize;
+    }
+}
@@ -0,0 +1,138 @@
+package com.tinkerpop.etc.github;
+
+import java.util.Arrays;
+
+/**
+ * A bounded record of the property values last written to shared vertices (users, repositories, etc.),
+ * so that a value which has not changed since it was last written need not be written again.
+ * In Titan, each redundant write would otherwise cost a deletion and an insertion.
+ * <p/>
+ * Values are stored as 64-bit fingerprints in a fixed-size, direct-mapped table keyed by vertex ID and property key;
+ * an entry displaced from the table simply means that the next write of that property goes through.
+ * A value is only recorded once it has been written, and the record assumes that writes are committed:
+ * it must be cleared if writes are rolled back.
+ * This class is not thread-safe.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class PropertyFingerprints {
+    private static final long
+            FNV_OFFSET = 0xcbf29ce484222325L,
+            FNV_PRIME = 0x100000001b3L;
+
+    private final long[] vertexIds;
+    private final String[] keys;
+    private final long[] fingerprints;
+    private final int mask;
+
+    private long written, skipped;
+
+    /**
+     * @param capacity the number of (vertex, key) entries, rounded up to a power of two
+     */
+    public PropertyFingerprints(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+
+        int size = Integer.highestOneBit(capacity * 2 - 1);
+        vertexIds = new long[size];
+        keys = new String[size];
+        fingerprints = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Checks a value against the last value recorded for the given vertex and key
+     *
+     * @return false if the value is known to be the value last written, otherwise true
+     */
+    public boolean changed(final long vertexId,
+                           final String key,
+                           final Object value) {
+        int slot = slot(vertexId, key);
+        if (vertexId == vertexIds[slot] && fingerprint(value) == fingerprints[slot] && key.equals(keys[slot])) {
+            skipped++;
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Records a value which has been written to the given vertex and key
+     */
+    public void written(final long vertexId,
+                        final String key,
+                        final Object value) {
+        int slot = slot(vertexId, key);
+        vertexIds[slot] = vertexId;
+        keys[slot] = key;
+        fingerprints[slot] = fingerprint(value);
+        written++;
+    }
+
+    /**
+     * Forgets all values, e.g. after the writes which they record have been rolled back
+     */
+    public void clear() {
+        Arrays.fill(keys, null);
+    }
+
+    /**
+     * @return the number of values found to be unchanged
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return the number of values recorded as written
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    @Override
+    public String toString() {
+        return "property fingerprints: " + written + " written, " + skipped + " unchanged ("
+                + String.format("%.1f", 0 == written + skipped ? 0 : skipped * 100.0 / (written + skipped))
+                + "% skipped)";
+    }
+
+    private int slot(final long vertexId,
+                     final String key) {
+        return (int) mix(vertexId * 31 + key.hashCode()) & mask;
+    }
+
+    // the type is part of the fingerprint, so that e.g. 1 and 1L differ
+    private static long fingerprint(final Object value) {
+        if (value instanceof String) {
+            String s = (String) value;
+            long h = FNV_OFFSET;
+            for (int i = 0; i < s.length(); i++) {
+                h = (h ^ s.charAt(i)) * FNV_PRIME;
+            }
+            return mix(h);
+        } else if (value instanceof Long) {
+            return mix((Long) value) ^ 1;
+        } else if (value instanceof Integer) {
+            return mix((Integer) value) ^ 2;
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? 3 : 4;
+        } else {
+            return mix(value.hashCode()) ^ value.getClass().hashCode();
+        }
+    }
+
+    // the finalizer of MurmurHash3
+    private static long mix(final long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,412 @@
+package com.tinkerpop.etc.github;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Columnar property storage for a set of elements identified by dense integer slots.
+ * Each property key has a single column, typed by its first value (or by an explicit declaration),
+ * and long, integer and boolean columns are stored as primitive arrays.
+ * Most keys of the schema belong to only one type of vertex, or are rarely set at all,
+ * so a column is kept sparse until enough elements have a value for it (see {@link Column}).
+ * As with Titan, a key accepts values of only one datatype.
+ * This class is not thread-safe.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+class PropertyTable {
+    // a column stays sparse until it has at least this many values
+    private static final int MIN_DENSE_ROWS = 1024;
+    // the approximate cost of a sparse value beyond the value itself: a map entry at between a quarter and half load,
+    // and the slot of the row
+    private static final int SPARSE_BITS_PER_ROW = 8 * (3 * 12 + 4);
+    // the size of a slot of a dense column of references, assuming compressed references
+    private static final int REFERENCE_BITS = 32;
+
+    private final Map<String, Column> columns = new LinkedHashMap<String, Column>();
+
+    /**
+     * Creates a column for the given key, if there is none already
+     */
+    void declare(final String key,
+                 final Class type) {
+        if (!columns.containsKey(key)) {
+            columns.put(key, createColumn(type));
+        }
+    }
+
+    Set<String> getKeys() {
+        return Collections.unmodifiableSet(columns.keySet());
+    }
+
+    Column getColumn(final String key) {
+        return columns.get(key);
+    }
+
+    Object get(final int slot,
+               final String key) {
+        Column c = columns.get(key);
+        return null == c ? null : c.get(slot);
+    }
+
+    void set(final int slot,
+             final String key,
+             final Object value) {
+        Column c = columns.get(key);
+        if (null == c) {
+            c = createColumn(value.getClass());
+            columns.put(key, c);
+        } else if (c.type != Object.class && c.type != value.getClass()) {
+            throw new IllegalArgumentException("value of property " + key + " must be of type " + c.type.getName()
+                    + ", not " + value.getClass().getName());
+        }
+
+        c.set(slot, value);
+    }
+
+    Object remove(final int slot,
+                  final String key) {
+        Column c = columns.get(key);
+        if (null == c) {
+            return null;
+        }
+
+        Object old = c.get(slot);
+        c.remove(slot);
+        return old;
+    }
+
+    void removeAll(final int slot) {
+        for (Column c : columns.values()) {
+            c.remove(slot);
+        }
+    }
+
+    Set<String> keysOf(final int slot) {
+        Set<String> keys = new HashSet<String>();
+        for (Map.Entry<String, Column> e : columns.entrySet()) {
+            if (e.getValue().has(slot)) {
+                keys.add(e.getKey());
+            }
+        }
+        return keys;
+    }
+
+    private static Column createColumn(final Class type) {
+        if (String.class == type) {
+            return new StringColumn();
+        } else if (Long.class == type) {
+            return new LongColumn();
+        } else if (Integer.class == type) {
+            return new IntegerColumn();
+        } else if (Boolean.class == type) {
+            return new BooleanColumn();
+        } else {
+            return new ObjectColumn();
+        }
+    }
+
+    private static int grow(final int length,
+                            final int index) {
+        return Math.max(index + 1, length + (length >> 1) + 16);
+    }
+
+    /**
+     * The values of a single key.  A column starts out sparse, with a row per element which has a value,
+     * found through a map from slot to row, and becomes dense, indexed directly by slot,
+     * once it has enough values that the map would cost more than the unused slots of a dense column.
+     * Subclasses store values at an index which is a row while the column is sparse, and a slot after that.
+     */
+    abstract static class Column {
+        private final Class type;
+        private final int denseBitsPerSlot;
+
+        // while sparse, the row of each slot which has a value, and the slot of each row
+        private LongIntMap rows = new LongIntMap(8);
+        private int[] slots = new int[0];
+        private int rowCount;
+        // the highest slot given a value so far
+        private int maxSlot = -1;
+
+        private Column(final Class type,
+                       final int denseBitsPerSlot) {
+            this.type = type;
+            this.denseBitsPerSlot = denseBitsPerSlot;
+        }
+
+        Class getType() {
+            return type;
+        }
+
+        boolean isDense() {
+            return null == rows;
+        }
+
+        final boolean has(final int slot) {
+            int index = indexOf(slot);
+            return LongIntMap.NONE != index && hasAt(index);
+        }
+
+        final Object get(final int slot) {
+            int index = indexOf(slot);
+            return LongIntMap.NONE == index ? null : getAt(index);
+        }
+
+        final void set(final int slot,
+                       final Object value) {
+            maxSlot = Math.max(maxSlot, slot);
+
+            if (isDense()) {
+                setAt(slot, value);
+                return;
+            }
+
+            int row = rows.get(slot);
+            if (LongIntMap.NONE != row) {
+                setAt(row, value);
+                return;
+            }
+
+            if (rowCount >= MIN_DENSE_ROWS && (long) (rowCount + 1) * SPARSE_BITS_PER_ROW
+                    > (long) (maxSlot + 1) * denseBitsPerSlot) {
+                densify();
+                setAt(slot, value);
+                return;
+            }
+
+            row = rowCount++;
+            if (row >= slots.length) {
+                slots = Arrays.copyOf(slots, grow(slots.length, row));
+            }
+            slots[row] = slot;
+            rows.put(slot, row);
+            setAt(row, value);
+        }
+
+        final void remove(final int slot) {
+            if (isDense()) {
+                clearAt(slot);
+                return;
+            }
+
+            int row = rows.remove(slot);
+            if (LongIntMap.NONE == row) {
+                return;
+            }
+
+            // move the last row into the gap, so that rows stay contiguous
+            int last = --rowCount;
+            if (row != last) {
+                setAt(row, getAt(last));
+                slots[row] = slots[last];
+                rows.put(slots[row], row);
+            }
+            clearAt(last);
+        }
+
+        private int indexOf(final int slot) {
+            return isDense() ? slot : rows.get(slot);
+        }
+
+        private void densify() {
+            Object[] values = new Object[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                values[row] = getAt(row);
+            }
+
+            clearAll();
+            for (int row = 0; row < rowCount; row++) {
+                setAt(slots[row], values[row]);
+            }
+
+            rows = null;
+            slots = null;
+            rowCount = 0;
+        }
+
+        abstract boolean hasAt(int index);
+
+        abstract Object getAt(int index);
+
+        abstract void setAt(int index, Object value);
+
+        abstract void clearAt(int index);
+
+        abstract void clearAll();
+    }
+
+    private static class StringColumn extends Column {
+        private String[] values = new String[0];
+
+        private StringColumn() {
+            super(String.class, REFERENCE_BITS);
+        }
+
+        boolean hasAt(final int index) {
+            return index < values.length && null != values[index];
+        }
+
+        Object getAt(final int index) {
+            return index < values.length ? values[index] : null;
+        }
+
+        void setAt(final int index,
+                   final Object value) {
+            if (index >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, index));
+            }
+            values[index] = (String) value;
+        }
+
+        void clearAt(final int index) {
+            if (index < values.length) {
+                values[index] = null;
+            }
+        }
+
+        void clearAll() {
+            values = new String[0];
+        }
+    }
+
+    private static class ObjectColumn extends Column {
+        private Object[] values = new Object[0];
+
+        private ObjectColumn() {
+            super(Object.class, REFERENCE_BITS);
+        }
+
+        boolean hasAt(final int index) {
+            return index < values.length && null != values[index];
+        }
+
+        Object getAt(final int index) {
+            return index < values.length ? values[index] : null;
+        }
+
+        void setAt(final int index,
+                   final Object value) {
+            if (index >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, index));
+            }
+            values[index] = value;
+        }
+
+        void clearAt(final int index) {
+            if (index < values.length) {
+                values[index] = null;
+            }
+        }
+
+        void clearAll() {
+            values = new Object[0];
+        }
+    }
+
+    private static class LongColumn extends Column {
+        private long[] values = new long[0];
+        private BitSet present = new BitSet();
+
+        private LongColumn() {
+            super(Long.class, 65);
+        }
+
+        boolean hasAt(final int index) {
+            return present.get(index);
+        }
+
+        Object getAt(final int index) {
+            return present.get(index) ? values[index] : null;
+        }
+
+        void setAt(final int index,
+                   final Object value) {
+            if (index >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, index));
+            }
+            values[index] = (Long) value;
+            present.set(index);
+        }
+
+        void clearAt(final int index) {
+            present.clear(index);
+        }
+
+        void clearAll() {
+            values = new long[0];
+            present = new BitSet();
+        }
+    }
+
+    private static class IntegerColumn extends Column {
+        private int[] values = new int[0];
+        private BitSet present = new BitSet();
+
+        private IntegerColumn() {
+            super(Integer.class, 33);
+        }
+
+        boolean hasAt(final int index) {
+            return present.get(index);
+        }
+
+        Object getAt(final int index) {
+            return present.get(index) ? values[index] : null;
+        }
+
+        void setAt(final int index,
+                   final Object value) {
+            if (index >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, index));
+            }
+            values[index] = (Integer) value;
+            present.set(index);
+        }
+
+        void clearAt(final int index) {
+            present.clear(index);
+        }
+
+        void clearAll() {
+            values = new int[0];
+            present = new BitSet();
+        }
+    }
+
+    private static class BooleanColumn extends Column {
+        private BitSet values = new BitSet();
+        private BitSet present = new BitSet();
+
+        private BooleanColumn() {
+            super(Boolean.class, 2);
+        }
+
+        boolean hasAt(final int index) {
+            return present.get(index);
+        }
+
+        Object getAt(final int index) {
+            return present.get(index) ? values.get(index) : null;
+        }
+
+        void setAt(final int index,
+                   final Object value) {
+            values.set(index, (Boolean) value);
+            present.set(index);
+        }
+
+        void clearAt(final int index) {
+            present.clear(index);
+        }
+
+        void clearAll() {
+            values = new BitSet();
+            present = new BitSet();
+        }
+    }
+}
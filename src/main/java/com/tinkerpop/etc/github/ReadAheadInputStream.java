@@ -0,0 +1,166 @@
+package com.tinkerpop.etc.github;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * An input stream which reads (and, for a compressed source, decompresses) ahead of its consumer
+ * on a separate thread, so that decompression overlaps with parsing and graph writes.
+ * Data is passed between the threads in a fixed number of large, recycled chunks.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class ReadAheadInputStream extends InputStream {
+    private static final Chunk END = new Chunk(0);
+
+    private final InputStream source;
+    private final BlockingQueue<Chunk> full;
+    private final BlockingQueue<Chunk> empty;
+    private final Thread reader;
+
+    private volatile IOException error;
+
+    private Chunk current;
+    private int position;
+    private boolean closed;
+
+    /**
+     * @param source    the stream to read from
+     * @param chunks    the number of chunks to read ahead
+     * @param chunkSize the size of each chunk, in bytes
+     */
+    public ReadAheadInputStream(final InputStream source,
+                                final int chunks,
+                                final int chunkSize) {
+        this.source = source;
+
+        full = new ArrayBlockingQueue<Chunk>(chunks + 1);
+        empty = new ArrayBlockingQueue<Chunk>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            empty.add(new Chunk(chunkSize));
+        }
+
+        reader = new Thread(new Runnable() {
+            public void run() {
+                readAhead();
+            }
+        }, "read-ahead");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+
+        return current.data[position++] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b,
+                    final int off,
+                    final int len) throws IOException {
+        if (0 == len) {
+            return 0;
+        }
+
+        if (!fill()) {
+            return -1;
+        }
+
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current.data, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+
+            reader.interrupt();
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            source.close();
+        }
+    }
+
+    // makes sure there is at least one byte available in the current chunk, unless the stream is exhausted
+    private boolean fill() throws IOException {
+        if (closed) {
+            throw new IOException("stream is closed");
+        }
+
+        while (null == current || position == current.length) {
+            if (END == current) {
+                return false;
+            }
+
+            if (null != current) {
+                empty.add(current);
+            }
+
+            try {
+                current = full.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while reading ahead");
+            }
+            position = 0;
+
+            if (END == current && null != error) {
+                throw error;
+            }
+        }
+
+        return true;
+    }
+
+    private void readAhead() {
+        try {
+            while (true) {
+                Chunk chunk = empty.take();
+
+                chunk.length = 0;
+                int n;
+                while (chunk.length < chunk.data.length
+                        && (n = source.read(chunk.data, chunk.length, chunk.data.length - chunk.length)) >= 0) {
+                    chunk.length += n;
+                }
+
+                if (chunk.length > 0) {
+                    full.put(chunk);
+                }
+
+                if (chunk.length < chunk.data.length) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            // closed by the consumer
+            return;
+        } catch (IOException e) {
+            error = e;
+        }
+
+        full.add(END);
+    }
+
+    private static class Chunk {
+        private final byte[] data;
+        private int length;
+
+        private Chunk(final int size) {
+            data = new byte[size];
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.tinkerpop.etc.github;
+
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.etc.github.beans.Event;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Writes batches of events with several threads, each with its own {@link EventHandler} and its own transactions,
+ * in the two passes described at {@link EventHandler#setShard(int, int)}.
+ * As each shared vertex is written by a single shard, writers never contend for hot vertices such as popular
+ * repositories, and as each event vertex is written by a single shard, nor for events.
+ * <p/>
+ * Each shard runs on a thread of its own, as Titan binds transactions to threads,
+ * and commits at the end of each pass, so that the shared vertices of a batch are visible to every shard
+ * before events are linked to them.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+class ShardedWriter {
+    private final EventHandler[] handlers;
+    private final TransactionalGraph graph;
+    private final ExecutorService[] threads;
+    private final IngestMetrics metrics;
+
+    /**
+     * @param handlers one handler per shard, each writing to the given graph
+     * @param graph    the graph to which all handlers write, each shard in a transaction of its own.
+     *                 Shards look up each other's vertices in the graph, so it must not be a {@link
+     *                 com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph}, which only finds the vertices
+     *                 it has added itself.
+     * @param metrics  optional metrics, to which commits are reported. May be null.
+     */
+    public ShardedWriter(final List<EventHandler> handlers,
+                         final TransactionalGraph graph,
+                         final IngestMetrics metrics) {
+        this.handlers = handlers.toArray(new EventHandler[handlers.size()]);
+        this.graph = graph;
+        this.metrics = metrics;
+
+        threads = new ExecutorService[this.handlers.length];
+        for (int i = 0; i < threads.length; i++) {
+            this.handlers[i].setShard(i, threads.length);
+            threads[i] = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                public Thread newThread(final Runnable r) {
+                    Thread t = new Thread(r, "writer-shard");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes and commits the given events
+     *
+     * @param events a batch of events, in which null elements are ignored
+     */
+    public void write(final List<Event> events) throws Exception {
+        runPass(events, true);
+        runPass(events, false);
+    }
+
+    /**
+     * Stops the threads of the shards
+     */
+    public void close() {
+        for (ExecutorService t : threads) {
+            t.shutdownNow();
+        }
+    }
+
+    private void runPass(final List<Event> events,
+                         final boolean sharedVertices) throws Exception {
+        List<Future<Void>> results = new LinkedList<Future<Void>>();
+        for (int i = 0; i < threads.length; i++) {
+            results.add(threads[i].submit(new Pass(i, events, sharedVertices)));
+        }
+
+        // wait for every shard, even after a failure, so that no pass overlaps the next batch
+        Exception error = null;
+        for (Future<Void> f : results) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                if (null == error) {
+                    Throwable cause = e.getCause();
+                    error = cause instanceof Exception ? (Exception) cause : e;
+                }
+            }
+        }
+
+        if (null != error) {
+            throw error;
+        }
+    }
+
+    private class Pass implements Callable<Void> {
+        private final int shard;
+        private final List<Event> events;
+        private final boolean sharedVertices;
+
+        private Pass(final int shard,
+                     final List<Event> events,
+                     final boolean sharedVertices) {
+            this.shard = shard;
+            this.events = events;
+            this.sharedVertices = sharedVertices;
+        }
+
+        public Void call() throws Exception {
+            EventHandler handler = handlers[shard];
+
+            boolean committed = false;
+            try {
+                int index = 0;
+                for (Event event : events) {
+                    if (null != event) {
+                        if (sharedVertices) {
+                            handler.handleSharedVertices(event);
+                        } else if (shard == handler.shardOf(event, index)) {
+                            handler.handle(event);
+                        }
+                    }
+                    index++;
+                }
+
+                long start = null == metrics ? 0 : System.nanoTime();
+                graph.commit();
+                handler.committed();
+                if (null != metrics) {
+                    metrics.committed(start);
+                }
+                committed = true;
+            } finally {
+                if (!committed) {
+                    graph.rollback();
+                    handler.rolledBack();
+                }
+            }
+
+            return null;
+        }
+    }
+}
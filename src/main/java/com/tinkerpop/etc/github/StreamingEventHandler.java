@@ -0,0 +1,624 @@
+package com.tinkerpop.etc.github;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.etc.github.beans.ActorAttributes;
+import com.tinkerpop.etc.github.beans.Comment;
+import com.tinkerpop.etc.github.beans.Event;
+import com.tinkerpop.etc.github.beans.Page;
+import com.tinkerpop.etc.github.beans.Payload;
+import com.tinkerpop.etc.github.beans.PullRequest;
+import com.tinkerpop.etc.github.beans.Release;
+import com.tinkerpop.etc.github.beans.RepositoryBrief;
+import com.tinkerpop.etc.github.beans.Team;
+import com.tinkerpop.etc.github.beans.User;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An alternative to bean-based parsing which drives a Jackson token stream directly over a (decompressed) archive
+ * file, producing the same vertices, edges and properties as {@link EventHandler#handle(Event)}
+ * without materializing a String per line or an Event bean graph per event.
+ * Property keys and types are taken from {@link BeanProperties}, so the two paths stay in agreement.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class StreamingEventHandler {
+
+    private static final Map<String, Property>
+            EVENT_PROPERTIES = propertiesOf(Event.class),
+            PAYLOAD_PROPERTIES = propertiesOf(Payload.class),
+            ACTOR_PROPERTIES = propertiesOf(ActorAttributes.class),
+            REPOSITORY_PROPERTIES = propertiesOf(RepositoryBrief.class),
+            USER_PROPERTIES = propertiesOf(User.class),
+            PAGE_PROPERTIES = propertiesOf(Page.class),
+            PULL_REQUEST_PROPERTIES = propertiesOf(PullRequest.class),
+            COMMENT_PROPERTIES = propertiesOf(Comment.class),
+            RELEASE_PROPERTIES = propertiesOf(Release.class),
+            TEAM_PROPERTIES = propertiesOf(Team.class);
+
+    private static final String
+            ACTOR_KEY = EventHandler.fixPropertyKey("actor"),
+            ID_KEY = EventHandler.fixPropertyKey("id");
+
+    // keys which are read for vertex IDs and event keys, whether or not they are projected
+    private static final Set<String> STRUCTURAL_KEYS = new HashSet<String>(Arrays.asList(
+            "type", "created_at", ACTOR_KEY, "owner", "name", "login", "sha", ID_KEY,
+            "action", "ref", "head", "number"));
+
+    private final EventHandler handler;
+    private final JsonFactory jsonFactory;
+    private final EventFilter filter;
+    private final IngestMetrics metrics;
+
+    // buffers are reused from one event to the next
+    private final PropertyBuffer
+            eventProperties = new PropertyBuffer(),
+            payloadProperties = new PropertyBuffer(),
+            actorAttributes = new PropertyBuffer(),
+            repository = new PropertyBuffer(),
+            target = new PropertyBuffer(),
+            member = new PropertyBuffer(),
+            pullRequest = new PropertyBuffer(),
+            comment = new PropertyBuffer(),
+            release = new PropertyBuffer(),
+            team = new PropertyBuffer(),
+            shas = new PropertyBuffer();
+    private final List<PropertyBuffer> pages = new ArrayList<PropertyBuffer>();
+    private final VertexIdHasher.Key vertexKey = new VertexIdHasher.Key();
+    private int pageCount;
+
+    // counts the lines of the stream of the most recent parser
+    private LineCountingInputStream lineCounter;
+    private long lineNumber;
+
+    public StreamingEventHandler(final EventHandler handler,
+                                 final JsonFactory jsonFactory) {
+        this.handler = handler;
+        this.jsonFactory = jsonFactory;
+        this.filter = handler.getEventFilter();
+        this.metrics = handler.getMetrics();
+    }
+
+    /**
+     * Creates a parser for this handler.  Only the most recently created parser is to be used.
+     *
+     * @param in a stream of whitespace-separated (typically line-delimited) JSON events
+     * @return a parser over the stream, to be passed to {@link #handleNext(JsonParser)} and then closed
+     */
+    public JsonParser createParser(final InputStream in) throws IOException {
+        lineCounter = new LineCountingInputStream(in);
+        lineNumber = 0;
+        return jsonFactory.createParser(lineCounter);
+    }
+
+    /**
+     * Reads the next event from the parser and writes it to the graph, unless the event filter rejects it
+     *
+     * @return whether there was another event, whether or not it was written
+     */
+    public boolean handleNext(final JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (null == token) {
+            return false;
+        }
+
+        // Jackson's own line numbers also count a lone carriage return, which a line-delimited file does not
+        lineNumber = lineCounter.linesBefore(parser.getTokenLocation().getByteOffset()) + 1;
+        if (JsonToken.START_OBJECT != token) {
+            throw new JsonParseException("expected an event object", parser.getCurrentLocation());
+        }
+
+        long start = null == metrics ? 0 : System.nanoTime();
+        boolean accepted = readEvent(parser);
+        if (null != metrics) {
+            metrics.parsed(start);
+        }
+
+        if (accepted) {
+            if (null != metrics) {
+                metrics.eventOfType(eventProperties.get("type"));
+                start = System.nanoTime();
+            }
+
+            writeEvent();
+
+            if (null != metrics) {
+                metrics.handled(start);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the line on which the most recent event began, where lines are terminated by newlines only,
+     * as in {@link LineSplitter}
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return whether the event is to be written
+     */
+    private boolean readEvent(final JsonParser parser) throws IOException {
+        eventProperties.clear();
+        payloadProperties.clear();
+        actorAttributes.clear();
+        repository.clear();
+        target.clear();
+        member.clear();
+        pullRequest.clear();
+        comment.clear();
+        release.clear();
+        team.clear();
+        shas.clear();
+        pageCount = 0;
+
+        while (JsonToken.FIELD_NAME == parser.nextToken()) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if (JsonToken.START_OBJECT == token) {
+                if (name.equals("payload")) {
+                    readPayload(parser);
+                } else if (name.equals("actor_attributes")) {
+                    readObject(parser, ACTOR_PROPERTIES, actorAttributes);
+                } else if (name.equals("repository")) {
+                    readObject(parser, REPOSITORY_PROPERTIES, repository);
+                } else {
+                    parser.skipChildren();
+                }
+            } else {
+                readValue(parser, token, name, EVENT_PROPERTIES, eventProperties);
+
+                // stop tokenizing values as soon as the event is known to be rejected
+                if (null != filter && rulesOut(name)) {
+                    skipRest(parser);
+                    return filter.accepts((String) eventProperties.get("type"),
+                            (String) eventProperties.get("created_at"), null, null);
+                }
+            }
+        }
+
+        return null == filter || !filter.selectsEvents() || filter.accepts(
+                (String) eventProperties.get("type"), (String) eventProperties.get("created_at"),
+                repository.get("owner"), repository.get("name"));
+    }
+
+    // whether the value just read for the given field rules the event out
+    private boolean rulesOut(final String name) {
+        if (name.equals("type")) {
+            return !filter.acceptsType((String) eventProperties.get("type"));
+        } else if (name.equals("created_at")) {
+            return !filter.acceptsTime((String) eventProperties.get("created_at"));
+        } else {
+            return false;
+        }
+    }
+
+    private void skipRest(final JsonParser parser) throws IOException {
+        while (JsonToken.FIELD_NAME == parser.nextToken()) {
+            parser.nextToken();
+            parser.skipChildren();
+        }
+    }
+
+    private void readPayload(final JsonParser parser) throws IOException {
+        while (JsonToken.FIELD_NAME == parser.nextToken()) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if (JsonToken.START_OBJECT == token) {
+                if (name.equals("target")) {
+                    readObject(parser, USER_PROPERTIES, target);
+                } else if (name.equals("member")) {
+                    readObject(parser, USER_PROPERTIES, member);
+                } else if (name.equals("pull_request")) {
+                    readObject(parser, PULL_REQUEST_PROPERTIES, pullRequest);
+                } else if (name.equals("comment")) {
+                    readObject(parser, COMMENT_PROPERTIES, comment);
+                } else if (name.equals("release")) {
+                    readObject(parser, RELEASE_PROPERTIES, release);
+                } else if (name.equals("team")) {
+                    readObject(parser, TEAM_PROPERTIES, team);
+                } else {
+                    parser.skipChildren();
+                }
+            } else if (JsonToken.START_ARRAY == token) {
+                if (name.equals("pages")) {
+                    readPages(parser);
+                } else if (name.equals("shas")) {
+                    readShas(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            } else {
+                readValue(parser, token, name, PAYLOAD_PROPERTIES, payloadProperties);
+            }
+        }
+    }
+
+    private void readPages(final JsonParser parser) throws IOException {
+        JsonToken token;
+        while (JsonToken.END_ARRAY != (token = parser.nextToken())) {
+            if (JsonToken.START_OBJECT == token) {
+                if (pages.size() == pageCount) {
+                    pages.add(new PropertyBuffer());
+                }
+                PropertyBuffer page = pages.get(pageCount++);
+                page.clear();
+                readObject(parser, PAGE_PROPERTIES, page);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readShas(final JsonParser parser) throws IOException {
+        if (null != filter && !filter.acceptsKey("sha_1")) {
+            parser.skipChildren();
+            return;
+        }
+
+        // as in the bean-based path, only scalar elements become properties; nested commit arrays are ignored
+        JsonToken token;
+        while (JsonToken.END_ARRAY != (token = parser.nextToken())) {
+            Object value;
+            switch (token) {
+                case VALUE_STRING:
+                    value = parser.getText();
+                    break;
+                case VALUE_TRUE:
+                case VALUE_FALSE:
+                    value = parser.getBooleanValue();
+                    break;
+                case VALUE_NUMBER_INT:
+                    value = parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER
+                            ? null : parser.getNumberValue();
+                    break;
+                default:
+                    parser.skipChildren();
+                    value = null;
+            }
+
+            if (null != value) {
+                shas.put("sha_" + (shas.size() + 1), value);
+            }
+        }
+    }
+
+    private void readObject(final JsonParser parser,
+                            final Map<String, Property> properties,
+                            final PropertyBuffer buffer) throws IOException {
+        buffer.present = true;
+        while (JsonToken.FIELD_NAME == parser.nextToken()) {
+            String name = parser.getCurrentName();
+            readValue(parser, parser.nextToken(), name, properties, buffer);
+        }
+    }
+
+    private void readValue(final JsonParser parser,
+                           final JsonToken token,
+                           final String name,
+                           final Map<String, Property> properties,
+                           final PropertyBuffer buffer) throws IOException {
+        if (JsonToken.START_OBJECT == token || JsonToken.START_ARRAY == token) {
+            parser.skipChildren();
+            return;
+        }
+
+        Property property = properties.get(name);
+        if (null == property || JsonToken.VALUE_NULL == token) {
+            return;
+        }
+
+        // values which are neither written nor needed for IDs are not even decoded
+        if (null != filter && !filter.acceptsKey(property.key) && !STRUCTURAL_KEYS.contains(property.key)) {
+            return;
+        }
+
+        Object value;
+        if (String.class == property.type) {
+            value = parser.getText();
+        } else if (Long.class == property.type) {
+            value = parser.getValueAsLong();
+        } else if (Integer.class == property.type) {
+            value = parser.getValueAsInt();
+        } else {
+            value = parser.getValueAsBoolean();
+        }
+
+        buffer.put(property.key, value);
+    }
+
+    private void writeEvent() {
+        Object createdAt = eventProperties.get("created_at");
+        if (null == createdAt) {
+            throw new IllegalArgumentException("event has no created_at timestamp");
+        }
+        long timestamp = handler.parseTimestamp((String) createdAt);
+
+        Vertex eventV = handler.createEventVertex(handler.getDeterministicIds() ? eventKey() : null);
+        if (null == eventV) {
+            return;
+        }
+        writeProperties(eventProperties, eventV);
+
+        Object actor = eventProperties.get(ACTOR_KEY);
+        if (null != actor) {
+            VertexIdHasher.Key actorId = vertexKey.set("user:", actor);
+            long actorVertexId = handler.hashedVertexId(actorId);
+            Vertex actorV = handler.getOrCreateVertex(actorVertexId, actorId, GithubSchema.TYPE_USER);
+            updateProperties(actorAttributes, actorV, actorVertexId);
+            handler.addEdgeTo(eventV, actorV, GithubSchema.Label.actor, timestamp);
+        }
+
+        if (repository.present) {
+            VertexIdHasher.Key repoId = vertexKey.set("repo:", repository.get("owner"), repository.get("name"));
+            long repoVertexId = handler.hashedVertexId(repoId);
+            Vertex repoV = handler.getOrCreateVertex(repoVertexId, repoId, GithubSchema.TYPE_REPOSITORY);
+            updateProperties(repository, repoV, repoVertexId);
+            handler.addEdgeTo(eventV, repoV, GithubSchema.Label.repository, timestamp);
+        }
+
+        writeProperties(payloadProperties, eventV);
+
+        writeVertex(eventV, target, "login", "user:", GithubSchema.TYPE_USER, GithubSchema.Label.target, timestamp);
+        for (int i = 0; i < pageCount; i++) {
+            writeVertex(eventV, pages.get(i), "sha", "page:", GithubSchema.TYPE_PAGE, GithubSchema.Label.page, timestamp);
+        }
+        writeVertex(eventV, member, "login", "user:", GithubSchema.TYPE_USER, GithubSchema.Label.member, timestamp);
+        writeVertex(eventV, pullRequest, ID_KEY, "pr:", GithubSchema.TYPE_PULL_REQUEST,
+                GithubSchema.Label.pull_request, timestamp);
+        writeVertex(eventV, comment, ID_KEY, "comment:", GithubSchema.TYPE_COMMENT,
+                GithubSchema.Label.comment, timestamp);
+        writeProperties(shas, eventV);
+        writeVertex(eventV, release, ID_KEY, "release:", GithubSchema.TYPE_RELEASE,
+                GithubSchema.Label.release, timestamp);
+        writeVertex(eventV, team, ID_KEY, "team:", GithubSchema.TYPE_TEAM, GithubSchema.Label.team, timestamp);
+    }
+
+    // see EventHandler.eventKey
+    private Object[] eventKey() {
+        Object[] key = new Object[EventHandler.EVENT_KEY_LENGTH];
+        key[0] = eventProperties.get("type");
+        key[1] = eventProperties.get("created_at");
+        key[2] = eventProperties.get(ACTOR_KEY);
+        if (repository.present) {
+            key[3] = repository.get("owner");
+            key[4] = repository.get("name");
+        }
+        key[5] = payloadProperties.get("action");
+        key[6] = payloadProperties.get("ref");
+        key[7] = payloadProperties.get("head");
+        key[8] = payloadProperties.get("number");
+        key[9] = payloadProperties.get(ID_KEY);
+        key[10] = comment.get(ID_KEY);
+        key[11] = pullRequest.get(ID_KEY);
+        key[12] = release.get(ID_KEY);
+        key[13] = team.get(ID_KEY);
+        key[14] = target.get("login");
+        key[15] = member.get("login");
+        key[16] = pageCount > 0 ? pages.get(0).get("sha") : null;
+
+        return key;
+    }
+
+    private void writeVertex(final Vertex eventV,
+                             final PropertyBuffer source,
+                             final String idKey,
+                             final String prefix,
+                             final String type,
+                             final GithubSchema.Label label,
+                             final long timestamp) {
+        if (!source.present) {
+            return;
+        }
+
+        Object id = source.get(idKey);
+        if (null == id) {
+            throw new IllegalArgumentException("null id");
+        }
+
+        VertexIdHasher.Key originalId = vertexKey.set(prefix, id);
+        long vertexId = handler.hashedVertexId(originalId);
+        Vertex v = handler.getOrCreateVertex(vertexId, originalId, type);
+        updateProperties(source, v, vertexId);
+        handler.addEdgeTo(eventV, v, label, timestamp);
+    }
+
+    private void writeProperties(final PropertyBuffer source,
+                                 final Vertex target) {
+        for (int i = 0; i < source.size; i++) {
+            handler.setProperty(target, source.keys[i], source.values[i]);
+        }
+    }
+
+    // see EventHandler.updateProperties
+    private void updateProperties(final PropertyBuffer source,
+                                  final Vertex target,
+                                  final long vertexId) {
+        for (int i = 0; i < source.size; i++) {
+            handler.updateProperty(target, vertexId, source.keys[i], source.values[i]);
+        }
+    }
+
+    private static Map<String, Property> propertiesOf(final Class clazz) {
+        BeanProperties beanProperties = BeanProperties.of(clazz);
+        Map<String, Property> properties = new HashMap<String, Property>();
+        for (int i = 0; i < beanProperties.size(); i++) {
+            properties.put(beanProperties.getJsonName(i),
+                    new Property(beanProperties.getKey(i), beanProperties.getType(i)));
+        }
+
+        return properties;
+    }
+
+    private static class Property {
+        private final String key;
+        private final Class type;
+
+        private Property(final String key,
+                         final Class type) {
+            this.key = key;
+            this.type = type;
+        }
+    }
+
+    /**
+     * A reusable, insertion-ordered list of property keys and values.
+     * If a key is repeated, the last value wins when the buffer is written, as it would with setProperty.
+     */
+    private static class PropertyBuffer {
+        private String[] keys = new String[16];
+        private Object[] values = new Object[16];
+        private int size;
+        private boolean present;
+
+        public void put(final String key,
+                        final Object value) {
+            if (keys.length == size) {
+                String[] k = new String[size * 2];
+                Object[] v = new Object[size * 2];
+                System.arraycopy(keys, 0, k, 0, size);
+                System.arraycopy(values, 0, v, 0, size);
+                keys = k;
+                values = v;
+            }
+
+            keys[size] = key;
+            values[size] = value;
+            size++;
+        }
+
+        public Object get(final String key) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (keys[i].equals(key)) {
+                    return values[i];
+                }
+            }
+
+            return null;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            for (int i = 0; i < size; i++) {
+                keys[i] = null;
+                values[i] = null;
+            }
+            size = 0;
+            present = false;
+        }
+    }
+
+    /**
+     * Records the offsets of the newlines read from a stream, so that the line of any later position can be found,
+     * even though the parser reads ahead of the token it returns.
+     * Only newlines at or beyond the last position asked for are kept.
+     */
+    private static class LineCountingInputStream extends FilterInputStream {
+        private long position;
+        private long linesPassed;
+
+        // the offsets of newlines not yet passed, in a circular buffer
+        private long[] newlines = new long[256];
+        private int head, size;
+
+        private LineCountingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        /**
+         * @param offset a position in the stream, which must not be before any position asked for previously
+         * @return the number of newlines before the position
+         */
+        public long linesBefore(final long offset) {
+            while (size > 0 && newlines[head] < offset) {
+                head = (head + 1) % newlines.length;
+                size--;
+                linesPassed++;
+            }
+
+            return linesPassed;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                if ('\n' == b) {
+                    addNewline(position);
+                }
+                position++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b,
+                        final int off,
+                        final int len) throws IOException {
+            int n = in.read(b, off, len);
+            for (int i = 0; i < n; i++) {
+                if ('\n' == b[off + i]) {
+                    addNewline(position + i);
+                }
+            }
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            // skipped bytes must still be counted
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            long skipped = 0;
+            while (skipped < n) {
+                int r = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+                if (r < 0) {
+                    break;
+                }
+                skipped += r;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void addNewline(final long offset) {
+            if (newlines.length == size) {
+                long[] n = new long[size * 2];
+                for (int i = 0; i < size; i++) {
+                    n[i] = newlines[(head + i) % newlines.length];
+                }
+                newlines = n;
+                head = 0;
+            }
+
+            newlines[(head + size) % newlines.length] = offset;
+            size++;
+        }
+    }
+}
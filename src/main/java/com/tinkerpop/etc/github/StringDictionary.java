@@ -0,0 +1,129 @@
+package com.tinkerpop.etc.github;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A bounded dictionary which deduplicates repeated string property values, such as languages, owners,
+ * event types and the URLs of popular repositories, so that equal values share a single String instance.
+ * <p/>
+ * The dictionary is a fixed-size, direct-mapped table: a value replaces whatever value was in its slot.
+ * Each property key is sampled; once a key has been looked up often enough, it is bypassed if its values rarely
+ * repeat, so that high-cardinality keys (commit messages, SHAs) do not evict useful entries.
+ * Values longer than a maximum length are never interned.
+ * This class is not thread-safe.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class StringDictionary {
+    private static final int MAX_LENGTH = 256;
+
+    // the number of lookups of a key after which its hit ratio is evaluated, and the minimum ratio to keep it
+    private static final int SAMPLE_SIZE = 1000;
+    private static final double MIN_HIT_RATIO = 0.1;
+
+    private final String[] table;
+    private final int mask;
+
+    private final Map<String, KeyStats> keyStats = new HashMap<String, KeyStats>();
+
+    private long hits, misses, bypassed;
+
+    /**
+     * @param capacity the number of entries in the dictionary, rounded up to a power of two
+     */
+    public StringDictionary(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+
+        int size = Integer.highestOneBit(capacity * 2 - 1);
+        table = new String[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @param key   the property key of the value
+     * @param value a property value
+     * @return an equal String, possibly the instance already in the dictionary
+     */
+    public String intern(final String key,
+                         final String value) {
+        KeyStats stats = keyStats.get(key);
+        if (null == stats) {
+            stats = new KeyStats();
+            keyStats.put(key, stats);
+        }
+
+        if (stats.bypassed || value.length() > MAX_LENGTH) {
+            bypassed++;
+            return value;
+        }
+
+        int slot = spread(value.hashCode()) & mask;
+        String existing = table[slot];
+        boolean hit = null != existing && existing.equals(value);
+
+        stats.lookups++;
+        if (hit) {
+            stats.hits++;
+            hits++;
+        } else {
+            table[slot] = value;
+            misses++;
+        }
+
+        if (SAMPLE_SIZE == stats.lookups && stats.hits < SAMPLE_SIZE * MIN_HIT_RATIO) {
+            stats.bypassed = true;
+        }
+
+        return hit ? existing : value;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of values not looked up, because of their length or their key
+     */
+    public long getBypassed() {
+        return bypassed;
+    }
+
+    /**
+     * @return the fraction of lookups which found an existing instance
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return 0 == lookups ? 0 : hits / (double) lookups;
+    }
+
+    @Override
+    public String toString() {
+        int bypassedKeys = 0;
+        for (KeyStats s : keyStats.values()) {
+            if (s.bypassed) {
+                bypassedKeys++;
+            }
+        }
+
+        return "string dictionary: " + hits + " hits, " + misses + " misses ("
+                + String.format("%.1f", getHitRatio() * 100) + "% hit ratio), " + bypassed + " bypassed; "
+                + bypassedKeys + " of " + keyStats.size() + " keys bypassed";
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static class KeyStats {
+        private long lookups;
+        private long hits;
+        private boolean bypassed;
+    }
+}
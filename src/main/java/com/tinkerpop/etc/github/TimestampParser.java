@@ -0,0 +1,164 @@
+package com.tinkerpop.etc.github;
+
+/**
+ * A thread-safe, allocation-free parser for the two timestamp formats found in the GitHub Archive:
+ * <code>yyyy-MM-dd'T'HH:mm:ssXXX</code> (e.g. 2014-05-31T00:13:30-07:00 or 2015-01-01T15:00:00Z)
+ * and the older <code>yyyy/MM/dd HH:mm:ss Z</code> (e.g. 2012/03/11 00:00:00 -0800).
+ * The format is recognized from the shape of the string, not by trial and error.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class TimestampParser {
+
+    private static final long
+            MILLIS_PER_SECOND = 1000L,
+            MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND,
+            MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE,
+            MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+    private TimestampParser() {
+    }
+
+    /**
+     * @param timestamp a timestamp in either of the archive's formats
+     * @return the timestamp in milliseconds since the epoch
+     */
+    public static long parse(final String timestamp) {
+        if (null == timestamp) {
+            throw new IllegalArgumentException("null timestamp");
+        }
+
+        int length = timestamp.length();
+        if (length < 20) {
+            throw invalid(timestamp);
+        }
+
+        char dateSeparator = timestamp.charAt(4);
+        char timeSeparator;
+        if ('-' == dateSeparator) {
+            timeSeparator = 'T';
+        } else if ('/' == dateSeparator) {
+            timeSeparator = ' ';
+        } else {
+            throw invalid(timestamp);
+        }
+
+        if (dateSeparator != timestamp.charAt(7)
+                || timeSeparator != timestamp.charAt(10)
+                || ':' != timestamp.charAt(13)
+                || ':' != timestamp.charAt(16)) {
+            throw invalid(timestamp);
+        }
+
+        int year = digits(timestamp, 0, 4);
+        int month = digits(timestamp, 5, 2);
+        int day = digits(timestamp, 8, 2);
+        int hour = digits(timestamp, 11, 2);
+        int minute = digits(timestamp, 14, 2);
+        int second = digits(timestamp, 17, 2);
+
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            throw invalid(timestamp);
+        }
+
+        long offset = '-' == dateSeparator ? isoOffset(timestamp) : rfc822Offset(timestamp);
+
+        return daysSinceEpoch(year, month, day) * MILLIS_PER_DAY
+                + hour * MILLIS_PER_HOUR
+                + minute * MILLIS_PER_MINUTE
+                + second * MILLIS_PER_SECOND
+                - offset;
+    }
+
+    // e.g. "Z" or "-07:00", beginning at position 19
+    private static long isoOffset(final String timestamp) {
+        int length = timestamp.length();
+        if (20 == length && 'Z' == timestamp.charAt(19)) {
+            return 0;
+        } else if (25 == length && ':' == timestamp.charAt(22)) {
+            return offset(timestamp, sign(timestamp, 19), digits(timestamp, 20, 2), digits(timestamp, 23, 2));
+        } else {
+            throw invalid(timestamp);
+        }
+    }
+
+    // e.g. " -0800", beginning at position 19
+    private static long rfc822Offset(final String timestamp) {
+        if (25 != timestamp.length() || ' ' != timestamp.charAt(19)) {
+            throw invalid(timestamp);
+        }
+
+        return offset(timestamp, sign(timestamp, 20), digits(timestamp, 21, 2), digits(timestamp, 23, 2));
+    }
+
+    private static long offset(final String timestamp,
+                               final int sign,
+                               final int hours,
+                               final int minutes) {
+        if (hours > 23 || minutes > 59) {
+            throw invalid(timestamp);
+        }
+
+        return sign * (hours * MILLIS_PER_HOUR + minutes * MILLIS_PER_MINUTE);
+    }
+
+    private static int sign(final String timestamp,
+                            final int index) {
+        char c = timestamp.charAt(index);
+        if ('+' == c) {
+            return 1;
+        } else if ('-' == c) {
+            return -1;
+        } else {
+            throw invalid(timestamp);
+        }
+    }
+
+    private static int digits(final String timestamp,
+                              final int start,
+                              final int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int d = timestamp.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                throw invalid(timestamp);
+            }
+            value = value * 10 + d;
+        }
+
+        return value;
+    }
+
+    private static int daysInMonth(final int year,
+                                   final int month) {
+        switch (month) {
+            case 2:
+                return (0 == year % 4 && 0 != year % 100) || 0 == year % 400 ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    // days from 1970-01-01 to the given date in the proleptic Gregorian calendar
+    private static long daysSinceEpoch(final int year,
+                                       final int month,
+                                       final int day) {
+        // count years from March, so that the leap day falls at the end of the year
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    private static IllegalArgumentException invalid(final String timestamp) {
+        return new IllegalArgumentException("not a valid timestamp: " + timestamp);
+    }
+}
@@ -0,0 +1,38 @@
+package com.tinkerpop.etc.github;
+
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * A cache of recently used vertices by internal (hashed) ID, which spares the graph a lookup for vertices
+ * such as popular users and repositories which appear again and again.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public interface VertexCache {
+
+    /**
+     * @return the cached vertex with the given ID, or null if there is none
+     */
+    Vertex get(long id);
+
+    /**
+     * Adds a vertex to the cache, possibly evicting another
+     */
+    void put(long id, Vertex vertex);
+
+    /**
+     * Removes all vertices from the cache
+     */
+    void clear();
+
+    /**
+     * @return the number of vertices currently in the cache
+     */
+    int size();
+
+    long getHits();
+
+    long getMisses();
+
+    long getEvictions();
+}
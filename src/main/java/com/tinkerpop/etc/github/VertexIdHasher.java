@@ -0,0 +1,254 @@
+package com.tinkerpop.etc.github;
+
+/**
+ * Hashes the original IDs of users, repositories etc. (e.g. "repo:owner/name") without building them as strings.
+ * The prefix and parts of a {@link Key} are streamed, as UTF-8, into an inline SipHash-2-4 using the same keys as
+ * Guava's {@link com.google.common.hash.Hashing#sipHash24()}, so the hash is the one Guava gives for the
+ * UTF-8 bytes of the whole ID.
+ * Numeric parts are written as decimal digits, as by string concatenation.
+ * <p/>
+ * Recent keys and their hashes are kept in a small direct-mapped cache, as the same users and repositories
+ * are referenced again and again within an hour of events.
+ * A hasher reuses its own state, so it is not thread-safe; each {@link EventHandler} has its own.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+class VertexIdHasher {
+    // the keys of Guava's sipHash24()
+    private static final long
+            K0 = 0x0706050403020100L,
+            K1 = 0x0f0e0d0c0b0a0908L;
+
+    private final String[] cachedPrefixes;
+    private final Object[] cachedFirsts;
+    private final Object[] cachedSeconds;
+    private final boolean[] cachedPairs;
+    private final long[] cachedHashes;
+    private final int mask;
+
+    private final byte[] digits = new byte[20];
+
+    private long v0, v1, v2, v3;
+    private long buffer;
+    private long length;
+
+    /**
+     * @param cacheSize the number of recent keys to keep. It is rounded up to a power of two.
+     *                  If 0, no keys are kept.
+     */
+    public VertexIdHasher(final int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("negative cache size");
+        }
+
+        int capacity = 0 == cacheSize ? 0 : Integer.highestOneBit(Math.max(1, cacheSize - 1)) << 1;
+        cachedPrefixes = new String[capacity];
+        cachedFirsts = new Object[capacity];
+        cachedSeconds = new Object[capacity];
+        cachedPairs = new boolean[capacity];
+        cachedHashes = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * @return the SipHash-2-4 of the UTF-8 bytes of the given string
+     */
+    public long hash(final String s) {
+        reset();
+        putString(s);
+        return finish();
+    }
+
+    /**
+     * @return the SipHash-2-4 of the UTF-8 bytes of the original ID represented by the given key
+     */
+    public long hash(final Key key) {
+        int index = 0;
+        if (mask >= 0) {
+            index = (31 * (31 * key.prefix.hashCode() + hashCode(key.first)) + hashCode(key.second));
+            index = (index ^ (index >>> 16)) & mask;
+            if (key.prefix.equals(cachedPrefixes[index])
+                    && equal(key.first, cachedFirsts[index])
+                    && equal(key.second, cachedSeconds[index])
+                    && key.pair == cachedPairs[index]) {
+                return cachedHashes[index];
+            }
+        }
+
+        reset();
+        putString(key.prefix);
+        putPart(key.first);
+        if (key.pair) {
+            putByte((byte) '/');
+            putPart(key.second);
+        }
+        long hash = finish();
+
+        if (mask >= 0) {
+            cachedPrefixes[index] = key.prefix;
+            cachedFirsts[index] = key.first;
+            cachedSeconds[index] = key.second;
+            cachedPairs[index] = key.pair;
+            cachedHashes[index] = hash;
+        }
+
+        return hash;
+    }
+
+    private static int hashCode(final Object o) {
+        return null == o ? 0 : o.hashCode();
+    }
+
+    private static boolean equal(final Object a,
+                                 final Object b) {
+        return null == a ? null == b : a.equals(b);
+    }
+
+    private void putPart(final Object part) {
+        if (part instanceof String) {
+            putString((String) part);
+        } else if (part instanceof Long || part instanceof Integer) {
+            putDecimal(((Number) part).longValue());
+        } else {
+            putString(String.valueOf(part));
+        }
+    }
+
+    private void putDecimal(final long value) {
+        if (Long.MIN_VALUE == value) {
+            putString(Long.toString(value));
+            return;
+        }
+
+        if (value < 0) {
+            putByte((byte) '-');
+        }
+
+        long v = Math.abs(value);
+        int i = digits.length;
+        do {
+            digits[--i] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v > 0);
+
+        for (; i < digits.length; i++) {
+            putByte(digits[i]);
+        }
+    }
+
+    // encodes as String.getBytes does, replacing unpaired surrogates with '?'
+    private void putString(final String s) {
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                putByte((byte) c);
+            } else if (c < 0x800) {
+                putByte((byte) (0xc0 | (c >>> 6)));
+                putByte((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    putByte((byte) (0xf0 | (cp >>> 18)));
+                    putByte((byte) (0x80 | ((cp >>> 12) & 0x3f)));
+                    putByte((byte) (0x80 | ((cp >>> 6) & 0x3f)));
+                    putByte((byte) (0x80 | (cp & 0x3f)));
+                } else {
+                    putByte((byte) '?');
+                }
+            } else {
+                putByte((byte) (0xe0 | (c >>> 12)));
+                putByte((byte) (0x80 | ((c >>> 6) & 0x3f)));
+                putByte((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+    }
+
+    private void reset() {
+        v0 = 0x736f6d6570736575L ^ K0;
+        v1 = 0x646f72616e646f6dL ^ K1;
+        v2 = 0x6c7967656e657261L ^ K0;
+        v3 = 0x7465646279746573L ^ K1;
+        buffer = 0;
+        length = 0;
+    }
+
+    private void putByte(final byte b) {
+        buffer |= (b & 0xffL) << ((length & 7) << 3);
+        if (0 == (++length & 7)) {
+            v3 ^= buffer;
+            sipRound();
+            sipRound();
+            v0 ^= buffer;
+            buffer = 0;
+        }
+    }
+
+    private long finish() {
+        long b = buffer | (length << 56);
+        v3 ^= b;
+        sipRound();
+        sipRound();
+        v0 ^= b;
+
+        v2 ^= 0xffL;
+        sipRound();
+        sipRound();
+        sipRound();
+        sipRound();
+        return v0 ^ v1 ^ v2 ^ v3;
+    }
+
+    private void sipRound() {
+        v0 += v1;
+        v2 += v3;
+        v1 = Long.rotateLeft(v1, 13);
+        v3 = Long.rotateLeft(v3, 16);
+        v1 ^= v0;
+        v3 ^= v2;
+        v0 = Long.rotateLeft(v0, 32);
+        v2 += v1;
+        v0 += v3;
+        v1 = Long.rotateLeft(v1, 17);
+        v3 = Long.rotateLeft(v3, 21);
+        v1 ^= v2;
+        v3 ^= v0;
+        v2 = Long.rotateLeft(v2, 32);
+    }
+
+    /**
+     * The original ID of a vertex, as a prefix followed by one part, e.g. "user:" and a login,
+     * or by two parts separated by a slash, e.g. "repo:" and the owner and name of a repository.
+     * A key is reused from one vertex to the next, and is only turned into a string when a new vertex is added.
+     */
+    public static class Key {
+        private String prefix;
+        private Object first;
+        private Object second;
+        private boolean pair;
+
+        public Key set(final String prefix,
+                       final Object id) {
+            this.prefix = prefix;
+            this.first = id;
+            this.second = null;
+            this.pair = false;
+            return this;
+        }
+
+        public Key set(final String prefix,
+                       final Object first,
+                       final Object second) {
+            this.prefix = prefix;
+            this.first = first;
+            this.second = second;
+            this.pair = true;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return pair ? prefix + first + "/" + second : prefix + first;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.tinkerpop.etc.github;
+
+import com.google.common.io.Files;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class AdjacencyStoreTest {
+    private static final long[] VERTICES = {4, 8, 12, 16, 20};
+
+    private static final Direction[] DIRECTIONS = {Direction.OUT, Direction.IN};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAdjacencyOrder() throws Exception {
+        List<TestEdge> edges = randomEdges(2000);
+        AdjacencyStore store = build(edges);
+
+        assertEquals(2 * edges.size(), store.getEntryCount());
+        for (long v : VERTICES) {
+            for (GithubSchema.Label label : GithubSchema.Label.values()) {
+                for (Direction d : DIRECTIONS) {
+                    List<TestEdge> expected = adjacent(edges, v, label, d, Long.MIN_VALUE, Long.MAX_VALUE);
+                    assertEquals(expected.size(), store.degree(v, label, d));
+                    assertCursor(expected, v, d, store.query(v, label, d));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTimestampRanges() throws Exception {
+        List<TestEdge> edges = randomEdges(2000);
+        AdjacencyStore store = build(edges);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            long v = VERTICES[random.nextInt(VERTICES.length)];
+            GithubSchema.Label label = GithubSchema.Label.values()[random.nextInt(2)];
+            Direction d = DIRECTIONS[random.nextInt(2)];
+            // bounds often fall on the timestamps of edges, which are inclusive
+            long min = random.nextInt(120) - 10;
+            long max = min + random.nextInt(40) - 5;
+
+            List<TestEdge> expected = adjacent(edges, v, label, d, min, max);
+            assertCursor(expected, v, d, store.query(v, label, d, min, max));
+        }
+    }
+
+    @Test
+    public void testMissingAdjacency() throws Exception {
+        AdjacencyStore store = new AdjacencyStore.Builder()
+                .addEdge(1, 4, 8, GithubSchema.Label.actor, 100)
+                .build();
+
+        assertEquals(0, store.degree(12, GithubSchema.Label.actor, Direction.OUT));
+        assertEquals(0, store.degree(4, GithubSchema.Label.actor, Direction.IN));
+        assertEquals(0, store.degree(4, GithubSchema.Label.repository, Direction.OUT));
+        assertFalse(store.query(12, GithubSchema.Label.actor, Direction.OUT).next());
+        assertFalse(store.query(4, GithubSchema.Label.actor, Direction.OUT, 101, 200).next());
+        assertFalse(store.query(4, GithubSchema.Label.actor, Direction.OUT, 0, 99).next());
+        assertTrue(store.query(4, GithubSchema.Label.actor, Direction.OUT, 100, 100).next());
+
+        try {
+            store.query(4, GithubSchema.Label.actor, Direction.BOTH);
+            fail("BOTH is not a direction of the store");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        AdjacencyStore.Cursor cursor = store.query(4, GithubSchema.Label.actor, Direction.OUT);
+        try {
+            cursor.getEdgeId();
+            fail("there is no current edge before the first call to next");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEmptyStore() throws Exception {
+        AdjacencyStore store = new AdjacencyStore.Builder().build();
+
+        assertEquals(0, store.getEntryCount());
+        assertFalse(store.query(4, GithubSchema.Label.actor, Direction.OUT).next());
+    }
+
+    @Test
+    public void testReplicateCompactGraph() throws Exception {
+        CompactGraph graph = Fixtures.load(GraphFactory.createCompactGraph(), false);
+        assertTrue(graph.getEdgeCount() > 0);
+
+        AdjacencyStore.Builder builder = new AdjacencyStore.Builder();
+        assertEquals(graph.getEdgeCount(), builder.addGraph(graph));
+        AdjacencyStore store = builder.build();
+        assertEquals(2 * graph.getEdgeCount(), store.getEntryCount());
+
+        for (Vertex v : graph.getVertices()) {
+            long id = (Long) v.getId();
+            for (GithubSchema.Label label : GithubSchema.Label.values()) {
+                for (Direction d : DIRECTIONS) {
+                    List<TestEdge> expected = new ArrayList<TestEdge>();
+                    for (Edge e : v.getEdges(d, label.name())) {
+                        expected.add(new TestEdge((Long) e.getId(), (Long) e.getVertex(Direction.OUT).getId(),
+                                (Long) e.getVertex(Direction.IN).getId(), label,
+                                (Long) e.getProperty(GithubSchema.TIMESTAMP)));
+                    }
+                    Collections.sort(expected, NEWEST_FIRST);
+
+                    assertCursor(expected, id, d, store.query(id, label, d));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLoaderBuildsStore() throws Exception {
+        File downloads = folder.newFolder("downloads");
+        OutputStream out = new FileOutputStream(new File(downloads, "2014-05-31-0.json"));
+        try {
+            for (String type : Fixtures.EVENT_TYPES) {
+                out.write((Fixtures.json(type) + "\n").getBytes(Charset.forName("UTF-8")));
+            }
+        } finally {
+            out.close();
+        }
+
+        File config = folder.newFile("loader.properties");
+        Files.write("downloadDirectory = " + downloads.getAbsolutePath() + "\n"
+                + "storage.backend = memory\n"
+                + "adjacencyStore = true\n", config, Charset.forName("UTF-8"));
+
+        GithubLoader loader = new GithubLoader(config);
+        loader.loadFiles();
+
+        AdjacencyStore store = loader.getAdjacencyStore();
+        assertNotNull(store);
+        CompactGraph expected = Fixtures.load(GraphFactory.createCompactGraph(), false);
+        assertEquals(2 * expected.getEdgeCount(), store.getEntryCount());
+    }
+
+    private static final Comparator<TestEdge> NEWEST_FIRST = new Comparator<TestEdge>() {
+        public int compare(final TestEdge a, final TestEdge b) {
+            return a.timestamp != b.timestamp
+                    ? (a.timestamp > b.timestamp ? -1 : 1)
+                    : (a.id < b.id ? -1 : a.id > b.id ? 1 : 0);
+        }
+    };
+
+    // few vertices, labels and timestamps, so that runs are long and timestamps are often tied
+    private static List<TestEdge> randomEdges(final int count) {
+        Random random = new Random(0);
+        List<TestEdge> edges = new ArrayList<TestEdge>();
+        for (int i = 0; i < count; i++) {
+            edges.add(new TestEdge(2 * i + 1,
+                    VERTICES[random.nextInt(VERTICES.length)],
+                    VERTICES[random.nextInt(VERTICES.length)],
+                    GithubSchema.Label.values()[random.nextInt(2)],
+                    random.nextInt(100)));
+        }
+        return edges;
+    }
+
+    private static AdjacencyStore build(final List<TestEdge> edges) {
+        AdjacencyStore.Builder builder = new AdjacencyStore.Builder();
+        for (TestEdge e : edges) {
+            builder.addEdge(e.id, e.outV, e.inV, e.label, e.timestamp);
+        }
+        return builder.build();
+    }
+
+    private static List<TestEdge> adjacent(final List<TestEdge> edges,
+                                           final long vertexId,
+                                           final GithubSchema.Label label,
+                                           final Direction direction,
+                                           final long minTimestamp,
+                                           final long maxTimestamp) {
+        List<TestEdge> result = new ArrayList<TestEdge>();
+        for (TestEdge e : edges) {
+            if (e.label == label && (Direction.OUT == direction ? e.outV : e.inV) == vertexId
+                    && e.timestamp >= minTimestamp && e.timestamp <= maxTimestamp) {
+                result.add(e);
+            }
+        }
+
+        Collections.sort(result, NEWEST_FIRST);
+        return result;
+    }
+
+    private static void assertCursor(final List<TestEdge> expected,
+                                     final long vertexId,
+                                     final Direction direction,
+                                     final AdjacencyStore.Cursor cursor) {
+        for (TestEdge e : expected) {
+            assertTrue(cursor.next());
+            assertEquals(e.id, cursor.getEdgeId());
+            assertEquals(e.timestamp, cursor.getTimestamp());
+            assertEquals(Direction.OUT == direction ? e.inV : e.outV, cursor.getVertexId());
+        }
+        assertFalse(cursor.next());
+    }
+
+    private static class TestEdge {
+        private final long id;
+        private final long outV;
+        private final long inV;
+        private final GithubSchema.Label label;
+        private final long timestamp;
+
+        private TestEdge(final long id,
+                         final long outV,
+                         final long inV,
+                         final GithubSchema.Label label,
+                         final long timestamp) {
+            this.id = id;
+            this.outV = outV;
+            this.inV = inV;
+            this.label = label;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.tinkerpop.etc.github;
+
+import com.google.common.io.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class ArchiveDownloaderTest {
+    private static final GithubTimestamp FIRST_HOUR = new GithubTimestamp("2014-05-31-0");
+
+    private static final String[] EVENT_TYPES = {
+            "PushEvent", "WatchEvent", "CreateEvent", "IssuesEvent", "ForkEvent", "PullRequestEvent"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ArchiveServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new ArchiveServer();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void testMissingHourIsSkipped() throws Exception {
+        GithubTimestamp[] hours = hours(3);
+        byte[] first = ArchiveServer.hourFile("PushEvent");
+        byte[] last = ArchiveServer.hourFile("WatchEvent", "ForkEvent");
+        server.publish(hours[0], first);
+        server.publish(hours[2], last);
+
+        ArchiveDownloader downloader
+                = new ArchiveDownloader(server.getUrl(), folder.getRoot(), FIRST_HOUR, hours[2], 2);
+        try {
+            assertDownloaded(hours[0], first, downloader.next());
+            assertDownloaded(hours[2], last, downloader.next());
+            assertFalse(downloader.hasNext());
+        } finally {
+            downloader.close();
+        }
+
+        assertEquals(1, server.countRequests("GET", hours[1]));
+        assertFalse(new File(folder.getRoot(), "" + hours[1] + ".json.gz").exists());
+    }
+
+    @Test
+    public void testTruncatedDownloadIsRetried() throws Exception {
+        byte[] data = ArchiveServer.hourFile("PushEvent", "IssuesEvent", "PullRequestEvent");
+        server.publish(FIRST_HOUR, data);
+        server.truncate(FIRST_HOUR, 1);
+
+        ArchiveDownloader downloader
+                = new ArchiveDownloader(server.getUrl(), folder.getRoot(), FIRST_HOUR, FIRST_HOUR, 1);
+        try {
+            assertDownloaded(FIRST_HOUR, data, downloader.next());
+            assertFalse(downloader.hasNext());
+        } finally {
+            downloader.close();
+        }
+
+        // the truncated file is discarded, rather than resumed, and downloaded again in full
+        assertEquals(Arrays.asList("GET " + FIRST_HOUR + ".json.gz", "GET " + FIRST_HOUR + ".json.gz"),
+                server.getRequests());
+        assertFalse(new File(folder.getRoot(), "" + FIRST_HOUR + ".json.gz.tmp").exists());
+    }
+
+    @Test
+    public void testPartialDownloadIsResumed() throws Exception {
+        byte[] data = ArchiveServer.hourFile("PushEvent", "IssuesEvent", "PullRequestEvent");
+        server.publish(FIRST_HOUR, data);
+
+        int partial = data.length / 3;
+        Files.write(Arrays.copyOf(data, partial), new File(folder.getRoot(), "" + FIRST_HOUR + ".json.gz.tmp"));
+
+        ArchiveDownloader downloader
+                = new ArchiveDownloader(server.getUrl(), folder.getRoot(), FIRST_HOUR, FIRST_HOUR, 1);
+        try {
+            assertDownloaded(FIRST_HOUR, data, downloader.next());
+            assertFalse(downloader.hasNext());
+        } finally {
+            downloader.close();
+        }
+
+        assertEquals(Arrays.asList("GET " + FIRST_HOUR + ".json.gz bytes=" + partial + "-"), server.getRequests());
+    }
+
+    @Test
+    public void testFollowArchive() throws Exception {
+        final GithubTimestamp[] hours = hours(6);
+        final byte[][] data = new byte[hours.length][];
+        for (int i = 0; i < hours.length; i++) {
+            data[i] = ArchiveServer.hourFile(EVENT_TYPES[i]);
+        }
+
+        // hour 3 is never published, and hour 1 fails more often than a single download will try it
+        server.publish(hours[0], data[0]);
+        server.fail(hours[1], 4);
+
+        // publish each of the remaining hours in turn
+        final int[] published = {1, 2, 4, 5};
+        final AtomicInteger publishedCount = new AtomicInteger();
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        timer.scheduleAtFixedRate(new Runnable() {
+            public void run() {
+                int i = publishedCount.get();
+                if (i < published.length) {
+                    server.publish(hours[published[i]], data[published[i]]);
+                    publishedCount.incrementAndGet();
+                }
+            }
+        }, 300, 300, TimeUnit.MILLISECONDS);
+
+        final ArchiveDownloader downloader
+                = new ArchiveDownloader(server.getUrl(), folder.getRoot(), FIRST_HOUR, null, 2, 50);
+        final BlockingQueue<File> files = new LinkedBlockingQueue<File>();
+        Thread follower = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    while (downloader.hasNext()) {
+                        files.add(downloader.next());
+                    }
+                } catch (IllegalStateException e) {
+                    // interrupted at the end of the test
+                }
+            }
+        });
+        follower.setDaemon(true);
+        follower.start();
+
+        try {
+            for (int i : new int[]{0, 1, 2}) {
+                assertDownloaded(hours[i], data[i], files.poll(10, TimeUnit.SECONDS));
+            }
+
+            // the missing hour holds back the follower until a later hour is published...
+            File next = files.poll(10, TimeUnit.SECONDS);
+            assertTrue(publishedCount.get() >= 3);
+            assertTrue(server.countRequests("GET", hours[3]) > 1);
+            // ...and is then skipped
+            assertDownloaded(hours[4], data[4], next);
+            assertDownloaded(hours[5], data[5], files.poll(10, TimeUnit.SECONDS));
+
+            // past the last published hour, the follower goes on polling rather than ending
+            int before = server.countRequests("GET", hours[5].nextHour());
+            Thread.sleep(500);
+            assertTrue(server.countRequests("GET", hours[5].nextHour()) > before);
+            assertTrue(follower.isAlive());
+            assertNull(files.poll());
+        } finally {
+            timer.shutdownNow();
+            follower.interrupt();
+            follower.join(5000);
+            downloader.close();
+        }
+    }
+
+    private static GithubTimestamp[] hours(final int count) {
+        GithubTimestamp[] hours = new GithubTimestamp[count];
+        GithubTimestamp hour = FIRST_HOUR;
+        for (int i = 0; i < count; i++) {
+            hours[i] = hour;
+            hour = hour.nextHour();
+        }
+        return hours;
+    }
+
+    private static void assertDownloaded(final GithubTimestamp hour,
+                                         final byte[] data,
+                                         final File file) throws Exception {
+        assertEquals("" + hour + ".json.gz", null == file ? null : file.getName());
+        assertTrue(Arrays.equals(data, Files.toByteArray(file)));
+    }
+}
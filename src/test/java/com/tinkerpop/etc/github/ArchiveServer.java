@@ -0,0 +1,187 @@
+package com.tinkerpop.etc.github;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An in-process stand-in for the GitHub Archive, serving hourly files over HTTP as {@link ArchiveDownloader}
+ * expects: 404 for hours not (yet) published, HEAD requests, and range requests for partial downloads.
+ * Hours may be published while the server is running, made to fail a number of times, or to be cut short.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+class ArchiveServer {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final Map<String, byte[]> files = new ConcurrentHashMap<String, byte[]>();
+    // the number of times each file has yet to fail, with a server error or with a truncated body
+    private final Map<String, Integer> failures = new ConcurrentHashMap<String, Integer>();
+    private final Map<String, Integer> truncations = new ConcurrentHashMap<String, Integer>();
+    private final List<String> requests = Collections.synchronizedList(new LinkedList<String>());
+
+    public ArchiveServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(final HttpExchange exchange) throws IOException {
+                try {
+                    respond(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public void publish(final GithubTimestamp hour,
+                        final byte[] data) {
+        files.put(fileName(hour), data);
+    }
+
+    /**
+     * Answers the next given number of requests for the hour with a server error
+     */
+    public void fail(final GithubTimestamp hour,
+                     final int times) {
+        failures.put(fileName(hour), times);
+    }
+
+    /**
+     * Answers the next given number of downloads of the hour with only the first half of what was asked for
+     */
+    public void truncate(final GithubTimestamp hour,
+                         final int times) {
+        truncations.put(fileName(hour), times);
+    }
+
+    /**
+     * @return the requests received so far, each as method, file name and any range, e.g. "GET 2014-05-31-0.json.gz"
+     * or "GET 2014-05-31-0.json.gz bytes=100-"
+     */
+    public List<String> getRequests() {
+        synchronized (requests) {
+            return new LinkedList<String>(requests);
+        }
+    }
+
+    public int countRequests(final String method,
+                             final GithubTimestamp hour) {
+        String prefix = method + " " + fileName(hour);
+        int count = 0;
+        for (String r : getRequests()) {
+            if (r.startsWith(prefix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return an hourly file of the given test events, each written on one line, gzipped as in the archive
+     */
+    public static byte[] hourFile(final String... eventTypes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputStream out = new GZIPOutputStream(bytes);
+        try {
+            for (String type : eventTypes) {
+                out.write(Fixtures.json(type).getBytes(UTF8));
+                out.write('\n');
+            }
+        } finally {
+            out.close();
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static String fileName(final GithubTimestamp hour) {
+        return "" + hour + ".json.gz";
+    }
+
+    private void respond(final HttpExchange exchange) throws IOException {
+        String name = exchange.getRequestURI().getPath().substring(1);
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        String method = exchange.getRequestMethod();
+        requests.add(method + " " + name + (null == range ? "" : " " + range));
+
+        ByteStreams.toByteArray(exchange.getRequestBody());
+
+        if (countDown(failures, name)) {
+            exchange.sendResponseHeaders(500, -1);
+            return;
+        }
+
+        byte[] data = files.get(name);
+        if (null == data) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+
+        if (method.equals("HEAD")) {
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+
+        int start = 0;
+        int end = data.length;
+        int code = 200;
+        if (null != range) {
+            // only the form the downloader sends, bytes=<start>-
+            start = Integer.valueOf(range.substring("bytes=".length(), range.length() - 1));
+            if (start >= data.length) {
+                exchange.sendResponseHeaders(416, -1);
+                return;
+            }
+            code = 206;
+        }
+        if (countDown(truncations, name)) {
+            end = start + (end - start) / 2;
+        }
+
+        exchange.sendResponseHeaders(code, end - start);
+        OutputStream out = exchange.getResponseBody();
+        out.write(data, start, end - start);
+        out.close();
+    }
+
+    private static boolean countDown(final Map<String, Integer> counts,
+                                     final String name) {
+        synchronized (counts) {
+            Integer count = counts.get(name);
+            if (null == count || 0 == count) {
+                return false;
+            }
+            counts.put(name, count - 1);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.tinkerpop.etc.github;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.wrappers.id.IdGraph;
+import com.tinkerpop.etc.github.beans.Event;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class BulkImporterTest {
+    private static final int PARTITIONS = 3;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSameGraphAsDirectLoad() throws Exception {
+        CompactGraph expected = Fixtures.load(GraphFactory.createCompactGraph(), true);
+
+        File directory = new File(folder.getRoot(), "bulk");
+        BulkExportGraph export = new BulkExportGraph(directory, PARTITIONS);
+        Fixtures.load(export, true);
+        export.commit();
+        export.shutdown();
+
+        CompactGraph actual = GraphFactory.createCompactGraph();
+        new BulkImporter(directory, PARTITIONS, new LruVertexCache(100)).importInto(actual);
+
+        assertSameGraph(expected, actual);
+
+        // each partition is deleted once it has been imported
+        String[] remaining = directory.list();
+        assertEquals(0, null == remaining ? 0 : remaining.length);
+    }
+
+    @Test
+    public void testEventsExportedTwice() throws Exception {
+        CompactGraph expected = Fixtures.load(GraphFactory.createCompactGraph(), true);
+
+        // as when an export is resumed from an earlier checkpoint; the importer writes each event only once
+        File directory = new File(folder.getRoot(), "bulk");
+        BulkExportGraph export = new BulkExportGraph(directory, PARTITIONS);
+        EventHandler handler = new EventHandler(export);
+        handler.setDeterministicIds(true);
+        for (int i = 0; i < 2; i++) {
+            for (Event event : Fixtures.events()) {
+                handler.handle(event);
+            }
+            export.commit();
+        }
+        export.shutdown();
+
+        CompactGraph actual = GraphFactory.createCompactGraph();
+        new BulkImporter(directory, PARTITIONS, null).importInto(actual);
+
+        assertSameGraph(expected, actual);
+    }
+
+    private static void assertSameGraph(final CompactGraph expected,
+                                        final CompactGraph actual) {
+        assertTrue(expected.getEdgeCount() > 0);
+        assertEquals(expected.getVertexCount(), actual.getVertexCount());
+        assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+
+        for (Vertex v : expected.getVertices()) {
+            Vertex w = actual.getVertex(v.getId());
+            assertNotNull("no vertex " + v.getProperty(IdGraph.ID), w);
+            assertSameProperties(v, w);
+        }
+        for (Edge e : expected.getEdges()) {
+            Edge f = actual.getEdge(e.getId());
+            assertNotNull("no " + e.getLabel() + " edge from "
+                    + e.getVertex(Direction.OUT).getProperty(IdGraph.ID), f);
+            assertEquals(e.getLabel(), f.getLabel());
+            assertEquals(e.getVertex(Direction.OUT).getId(), f.getVertex(Direction.OUT).getId());
+            assertEquals(e.getVertex(Direction.IN).getId(), f.getVertex(Direction.IN).getId());
+            assertSameProperties(e, f);
+        }
+    }
+
+    private static void assertSameProperties(final Element expected,
+                                             final Element actual) {
+        String id = expected instanceof Vertex
+                ? "" + expected.getProperty(IdGraph.ID)
+                : "edge " + expected.getId();
+        assertEquals("keys of " + id, expected.getPropertyKeys(), actual.getPropertyKeys());
+        for (String key : expected.getPropertyKeys()) {
+            assertEquals(key + " of " + id, expected.getProperty(key), actual.getProperty(key));
+        }
+    }
+}
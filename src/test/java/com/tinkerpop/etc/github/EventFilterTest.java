@@ -0,0 +1,175 @@
+package com.tinkerpop.etc.github;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.etc.github.beans.Event;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class EventFilterTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonFactory factory = mapper.getFactory();
+
+    @Test
+    public void testTypes() throws Exception {
+        EventFilter filter = new EventFilter(
+                set("PushEvent", "WatchEvent"), null, Long.MIN_VALUE, Long.MAX_VALUE, null);
+        assertTrue(filter.selectsEvents());
+
+        for (String type : Fixtures.EVENT_TYPES) {
+            assertEquals(type, type.equals("PushEvent") || type.equals("WatchEvent"), accepts(filter, type));
+        }
+        assertEquals(2, filter.getAccepted());
+        assertEquals(Fixtures.EVENT_TYPES.length - 2, filter.getRejected());
+
+        // an event without a type is rejected
+        assertFalse(accepts(filter, "{\"created_at\":\"2014-05-31T00:13:30-07:00\"}"));
+    }
+
+    @Test
+    public void testTimeWindow() throws Exception {
+        // the push event was created at 2014-05-31T00:13:30-07:00
+        long time = TimestampParser.parse("2014-05-31T00:13:30-07:00");
+
+        assertTrue(accepts(new EventFilter(null, null, time, time + 1, null), "PushEvent"));
+        assertTrue(accepts(new EventFilter(null, null, Long.MIN_VALUE, time + 1, null), "PushEvent"));
+        // the end of the window is exclusive
+        assertFalse(accepts(new EventFilter(null, null, Long.MIN_VALUE, time, null), "PushEvent"));
+        assertFalse(accepts(new EventFilter(null, null, time + 1, Long.MAX_VALUE, null), "PushEvent"));
+
+        // the other format of the archive
+        EventFilter filter = new EventFilter(null, null, time, time + 1, null);
+        assertTrue(accepts(filter, "{\"created_at\":\"2014/05/31 16:13:30 +0900\",\"type\":\"PushEvent\"}"));
+        assertFalse(accepts(filter, "{\"created_at\":\"2014/05/31 16:13:31 +0900\",\"type\":\"PushEvent\"}"));
+        assertFalse(accepts(filter, "{\"type\":\"PushEvent\"}"));
+    }
+
+    @Test
+    public void testRepositories() throws Exception {
+        EventFilter filter = new EventFilter(
+                null, Pattern.compile("Juniper/.*"), Long.MIN_VALUE, Long.MAX_VALUE, null);
+        assertTrue(accepts(filter, "PushEvent"));
+        assertFalse(accepts(filter, "WatchEvent"));
+        // events without a repository never match
+        assertFalse(accepts(filter, "GistEvent"));
+        assertFalse(accepts(filter, "FollowEvent"));
+
+        filter = new EventFilter(null, Pattern.compile("liuliu/ccv"), Long.MIN_VALUE, Long.MAX_VALUE, null);
+        assertFalse(accepts(filter, "PushEvent"));
+        assertTrue(accepts(filter, "WatchEvent"));
+    }
+
+    @Test
+    public void testAllCriteria() throws Exception {
+        long time = TimestampParser.parse("2014-05-31T00:13:30-07:00");
+        assertTrue(accepts(new EventFilter(
+                set("PushEvent"), Pattern.compile("Juniper/.*"), time, time + 1, null), "PushEvent"));
+        assertFalse(accepts(new EventFilter(
+                set("WatchEvent"), Pattern.compile("Juniper/.*"), time, time + 1, null), "PushEvent"));
+        assertFalse(accepts(new EventFilter(
+                set("PushEvent"), Pattern.compile("liuliu/.*"), time, time + 1, null), "PushEvent"));
+        assertFalse(accepts(new EventFilter(
+                set("PushEvent"), Pattern.compile("Juniper/.*"), time + 1, time + 2, null), "PushEvent"));
+    }
+
+    @Test
+    public void testStopsOnceDecided() throws Exception {
+        // the rest of the event is never read, so it need not even be well-formed
+        String truncated = "{\"created_at\":\"2014-05-31T00:13:30-07:00\",\"type\":\"PushEvent\",\"payload\":{\"shas\":[";
+        long time = TimestampParser.parse("2014-05-31T00:13:30-07:00");
+
+        assertTrue(accepts(new EventFilter(set("PushEvent"), null, Long.MIN_VALUE, Long.MAX_VALUE, null), truncated));
+        assertTrue(accepts(new EventFilter(null, null, time, time + 1, null), truncated));
+        assertTrue(accepts(new EventFilter(set("PushEvent"), null, time, time + 1, null), truncated));
+        assertFalse(accepts(new EventFilter(set("WatchEvent"), null, time, time + 1, null), truncated));
+    }
+
+    @Test
+    public void testShasProjection() throws Exception {
+        EventFilter filter = new EventFilter(null, null, Long.MIN_VALUE, Long.MAX_VALUE, set("shas", "id"));
+        assertFalse(filter.selectsEvents());
+        assertTrue(filter.acceptsKey("sha_1"));
+        assertTrue(filter.acceptsKey("sha_20"));
+        assertTrue(filter.acceptsKey("shas"));
+        // keys are given as in the JSON
+        assertTrue(filter.acceptsKey(EventHandler.fixPropertyKey("id")));
+        assertFalse(filter.acceptsKey("sha"));
+        assertFalse(filter.acceptsKey("url"));
+        assertTrue(new EventFilter(null, null, Long.MIN_VALUE, Long.MAX_VALUE, null).acceptsKey("sha_1"));
+
+        // a push event with scalar shas, which become the numbered properties of the event
+        ObjectNode json = (ObjectNode) mapper.readTree(Fixtures.json("PushEvent"));
+        ArrayNode shas = ((ObjectNode) json.get("payload")).putArray("shas");
+        shas.add("5e2caa41dbc31819957f4bb51a203b7c56eeccdd");
+        shas.add("3a1b0dbbd9c54c7d10bbd4d10c7ee8b0e01a3c0c");
+        String line = mapper.writeValueAsString(json);
+
+        for (boolean streaming : new boolean[]{false, true}) {
+            Vertex projected = loadPushEvent(line, filter, streaming);
+            assertEquals("5e2caa41dbc31819957f4bb51a203b7c56eeccdd", projected.getProperty("sha_1"));
+            assertEquals("3a1b0dbbd9c54c7d10bbd4d10c7ee8b0e01a3c0c", projected.getProperty("sha_2"));
+            assertNull(projected.getProperty("url"));
+
+            Vertex withoutShas = loadPushEvent(line,
+                    new EventFilter(null, null, Long.MIN_VALUE, Long.MAX_VALUE, set("url")), streaming);
+            assertNull(withoutShas.getProperty("sha_1"));
+            assertNotNull(withoutShas.getProperty("url"));
+        }
+    }
+
+    private Vertex loadPushEvent(final String line,
+                                 final EventFilter filter,
+                                 final boolean streaming) throws Exception {
+        CompactGraph graph = GraphFactory.createCompactGraph();
+        EventHandler handler = new EventHandler(graph);
+        handler.setEventFilter(filter);
+        if (streaming) {
+            StreamingEventHandler streamingHandler = new StreamingEventHandler(handler, factory);
+            JsonParser parser = streamingHandler.createParser(new ByteArrayInputStream(line.getBytes(UTF8)));
+            try {
+                assertTrue(streamingHandler.handleNext(parser));
+            } finally {
+                parser.close();
+            }
+        } else {
+            handler.handle(mapper.readValue(line, Event.class));
+        }
+
+        for (Vertex v : graph.getVertices(GithubSchema.TYPE, GithubSchema.TYPE_EVENT)) {
+            return v;
+        }
+        throw new AssertionError("no event vertex");
+    }
+
+    private boolean accepts(final EventFilter filter,
+                            final String typeOrJson) throws Exception {
+        String json = typeOrJson.startsWith("{") ? typeOrJson : Fixtures.json(typeOrJson);
+        byte[] bytes = json.getBytes(UTF8);
+        return filter.accepts(factory, bytes, 0, bytes.length);
+    }
+
+    private static Set<String> set(final String... values) {
+        return new HashSet<String>(Arrays.asList(values));
+    }
+}
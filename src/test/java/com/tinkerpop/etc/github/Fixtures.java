@@ -0,0 +1,71 @@
+package com.tinkerpop.etc.github;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.etc.github.beans.Event;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The sample events of the test resources, one of each type, as archive lines, as beans, and loaded into a graph
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+class Fixtures {
+    public static final String[] EVENT_TYPES = {
+            "CommitCommentEvent", "CreateEvent", "DeleteEvent", "FollowEvent", "ForkEvent", "GistEvent",
+            "GollumEvent", "IssueCommentEvent", "IssuesEvent", "MemberEvent", "PublicEvent", "PullRequestEvent",
+            "PullRequestReviewCommentEvent", "PushEvent", "ReleaseEvent", "TeamAddEvent", "WatchEvent"};
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static {
+        // as in GithubLoader
+        MAPPER.configure(MapperFeature.USE_ANNOTATIONS, true);
+    }
+
+    private Fixtures() {
+    }
+
+    /**
+     * @return the sample event of the given type, as a line of the archive
+     */
+    public static String json(final String eventType) throws IOException {
+        InputStream in = Fixtures.class.getResourceAsStream(eventType + ".json");
+        try {
+            return MAPPER.writeValueAsString(MAPPER.readTree(in));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return all sample events, in the order of {@link #EVENT_TYPES}
+     */
+    public static List<Event> events() throws IOException {
+        List<Event> events = new LinkedList<Event>();
+        for (String type : EVENT_TYPES) {
+            events.add(MAPPER.readValue(json(type), Event.class));
+        }
+        return events;
+    }
+
+    /**
+     * Writes all sample events to the given graph with a new handler
+     *
+     * @return the graph
+     */
+    public static <G extends Graph> G load(final G graph,
+                                           final boolean deterministicIds) throws Exception {
+        EventHandler handler = new EventHandler(graph);
+        handler.setDeterministicIds(deterministicIds);
+        for (Event event : events()) {
+            handler.handle(event);
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,249 @@
+package com.tinkerpop.etc.github;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.Files;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class GithubLoaderTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final String URL_PREFIX = "http://example.org/events/";
+
+    // the number of lines of the test file, and the line which is malformed in the first run
+    private static final int LINES = 10, MALFORMED_LINE = 8;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testResumeWithBeanParser() throws Exception {
+        testResume("bean");
+    }
+
+    @Test
+    public void testResumeWithStreamingParser() throws Exception {
+        testResume("streaming");
+    }
+
+    @Test
+    public void testResumeAtUnterminatedLastLine() throws Exception {
+        for (String parser : new String[]{"bean", "streaming"}) {
+            for (int committed = 0; committed <= LINES; committed++) {
+                File downloads = folder.newFolder();
+                File file = writeEvents(downloads, 0, 0);
+                File config = writeConfig(downloads, parser,
+                        "fileInProgress = " + file.getAbsolutePath() + "\nlinesCommitted = " + committed + "\n");
+
+                GithubLoader loader = new GithubLoader(config);
+                loader.loadFiles();
+                assertEquals(parser, lines(committed + 1, LINES), linesLoaded(loader.getGraph(), 0));
+                assertEquals(file.getAbsolutePath(), readStatus(config).getProperty("lastFileLoaded"));
+            }
+
+            // more lines than the file has
+            File downloads = folder.newFolder();
+            File file = writeEvents(downloads, 0, 0);
+            File config = writeConfig(downloads, parser,
+                    "fileInProgress = " + file.getAbsolutePath() + "\nlinesCommitted = " + (LINES + 1) + "\n");
+            try {
+                new GithubLoader(config).loadFiles();
+                fail("skipped past the end of the file");
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testParallelLoad() throws Exception {
+        File downloads = folder.newFolder("downloads");
+        File first = writeEvents(downloads, 0, 0);
+        File second = writeEvents(downloads, 1, 0);
+        File last = writeEvents(downloads, 2, 0);
+        writeEvents(downloads, 3, 0);
+
+        // batches smaller than a file, and a checkpoint in the middle of a batch
+        File config = writeConfig(downloads, "bean", "loadThreads = 3\n"
+                + "pipelineBatchSize = 4\n"
+                + "pipelineQueueSize = 3\n"
+                + "commitEvents = 3\n"
+                + "lastFileLoaded = " + first.getAbsolutePath() + "\n"
+                + "fileInProgress = " + second.getAbsolutePath() + "\n"
+                + "linesCommitted = 5\n");
+
+        GithubLoader loader = new GithubLoader(config);
+        loader.loadFiles();
+        assertEquals(Collections.<Integer>emptyList(), linesLoaded(loader.getGraph(), 0));
+        assertEquals(lines(6, LINES), linesLoaded(loader.getGraph(), 1));
+        assertEquals(lines(1, LINES), linesLoaded(loader.getGraph(), 2));
+        assertEquals(lines(1, LINES), linesLoaded(loader.getGraph(), 3));
+        assertEquals(new File(downloads, "2014-05-31-3.json").getAbsolutePath(),
+                readStatus(config).getProperty("lastFileLoaded"));
+
+        // a parse error in a later file stops the load at the last checkpoint before it
+        writeEvents(downloads, 2, MALFORMED_LINE);
+        config = writeConfig(downloads, "bean", "loadThreads = 3\n"
+                + "pipelineBatchSize = 4\n"
+                + "commitEvents = 3\n");
+        loader = new GithubLoader(config);
+        try {
+            loader.loadFiles();
+            fail("loaded a malformed line");
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals(lines(1, LINES), linesLoaded(loader.getGraph(), 1));
+        assertEquals(lines(1, 4), linesLoaded(loader.getGraph(), 2));
+        Properties status = readStatus(config);
+        assertEquals(second.getAbsolutePath(), status.getProperty("lastFileLoaded"));
+        assertEquals(last.getAbsolutePath(), status.getProperty("fileInProgress"));
+        assertEquals("3", status.getProperty("linesCommitted"));
+    }
+
+    @Test
+    public void testParallelLoadRequiresBeanParser() throws Exception {
+        File downloads = folder.newFolder("downloads");
+        try {
+            new GithubLoader(writeConfig(downloads, "streaming", "loadThreads = 2\n"));
+            fail("streaming parser accepted with several load threads");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private void testResume(final String parser) throws Exception {
+        File downloads = folder.newFolder("downloads");
+        File file = writeEvents(downloads, 0, MALFORMED_LINE);
+        File config = writeConfig(downloads, parser, "commitEvents = 3\n");
+
+        // the first run fails on the malformed line, after a checkpoint at line 6
+        GithubLoader loader = new GithubLoader(config);
+        try {
+            loader.loadFiles();
+            fail("loaded a malformed line");
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals(lines(1, MALFORMED_LINE - 1), linesLoaded(loader.getGraph(), 0));
+
+        Properties status = readStatus(config);
+        assertNull(status.getProperty("lastFileLoaded"));
+        assertEquals(file.getAbsolutePath(), status.getProperty("fileInProgress"));
+        assertEquals("6", status.getProperty("linesCommitted"));
+
+        // the second run, with the line repaired, picks up exactly where the checkpoint left off
+        writeEvents(downloads, 0, 0);
+        loader = new GithubLoader(config);
+        loader.loadFiles();
+        assertEquals(lines(7, LINES), linesLoaded(loader.getGraph(), 0));
+
+        status = readStatus(config);
+        assertEquals(file.getAbsolutePath(), status.getProperty("lastFileLoaded"));
+        assertNull(status.getProperty("fileInProgress"));
+        assertNull(status.getProperty("linesCommitted"));
+    }
+
+    /**
+     * Writes the file of an hour of distinct events, one per line, with the hour and line number in the URL of each.
+     * Lines end in a mixture of newlines and carriage return/newline pairs, some lines contain a lone carriage return,
+     * and the last line is not terminated.
+     *
+     * @param malformedLine a line to replace with one which cannot be parsed, or 0 for none
+     */
+    private File writeEvents(final File directory,
+                             final int hour,
+                             final int malformedLine) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= LINES; i++) {
+            ObjectNode event = (ObjectNode) mapper.readTree(Fixtures.json("WatchEvent"));
+            event.put("url", URL_PREFIX + hour + "/" + i);
+            String line = mapper.writeValueAsString(event);
+
+            if (i == malformedLine) {
+                line = "not an event";
+            } else if (2 == i % 4) {
+                // whitespace to JSON, but not a line break
+                line = line.replaceFirst(",", ",\r");
+            }
+
+            sb.append(line);
+            if (i < LINES) {
+                sb.append(1 == i % 3 ? "\r\n" : "\n");
+            }
+        }
+
+        File file = new File(directory, "2014-05-31-" + hour + ".json");
+        Files.write(sb.toString(), file, UTF8);
+        return file;
+    }
+
+    private File writeConfig(final File downloads,
+                             final String parser,
+                             final String status) throws IOException {
+        File config = new File(downloads.getParentFile(), downloads.getName() + ".properties");
+        Files.write("downloadDirectory = " + downloads.getAbsolutePath() + "\n"
+                + "storage.backend = memory\n"
+                + "parser = " + parser + "\n"
+                + status, config, UTF8);
+        return config;
+    }
+
+    private static Properties readStatus(final File config) throws IOException {
+        Properties status = new Properties();
+        InputStream in = new FileInputStream(config);
+        try {
+            status.load(in);
+        } finally {
+            in.close();
+        }
+        return status;
+    }
+
+    // the lines of the events of an hour in the graph, in order, with any line loaded more than once appearing more
+    // than once
+    private static List<Integer> linesLoaded(final Graph graph,
+                                             final int hour) {
+        String prefix = URL_PREFIX + hour + "/";
+        List<Integer> lines = new ArrayList<Integer>();
+        for (Vertex v : graph.getVertices(GithubSchema.TYPE, GithubSchema.TYPE_EVENT)) {
+            String url = v.getProperty("url");
+            if (url.startsWith(prefix)) {
+                lines.add(Integer.valueOf(url.substring(prefix.length())));
+            }
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    private static List<Integer> lines(final int first,
+                                       final int last) {
+        List<Integer> lines = new ArrayList<Integer>();
+        for (int i = first; i <= last; i++) {
+            lines.add(i);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,100 @@
+package com.tinkerpop.etc.github;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class GraphSnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        CompactGraph graph = Fixtures.load(GraphFactory.createCompactGraph(), false);
+
+        // values at the edges of the encoding, which the sample events don't have
+        Vertex v = graph.addVertex(1L << 62);
+        v.setProperty("minLong", Long.MIN_VALUE);
+        v.setProperty("minInteger", Integer.MIN_VALUE);
+        v.setProperty("negativeInteger", -1);
+        v.setProperty("empty", "");
+        v.setProperty("nonAscii", "\u00e9t\u00e9 \u6f22\u5b57 \ud83d\ude00");
+        graph.addEdge(1L << 62, v, v, "self").setProperty("flag", false);
+
+        Map<String, String> metadata = new LinkedHashMap<String, String>();
+        metadata.put("lastFileLoaded", "/data/2014-05-31-23.json.gz");
+        metadata.put("empty", "");
+
+        File file = new File(folder.getRoot(), "graph.snapshot");
+        GraphSnapshot.write(graph, metadata, file);
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        CompactGraph restored = new CompactGraph();
+        assertEquals(metadata, GraphSnapshot.read(file, restored));
+
+        assertEquals(graph.getVertexCount(), restored.getVertexCount());
+        assertEquals(graph.getEdgeCount(), restored.getEdgeCount());
+
+        Set<Class> types = new HashSet<Class>();
+        for (Vertex expected : graph.getVertices()) {
+            Vertex actual = restored.getVertex(expected.getId());
+            assertNotNull(actual);
+            assertProperties(expected, actual, types);
+        }
+        for (Edge expected : graph.getEdges()) {
+            Edge actual = restored.getEdge(expected.getId());
+            assertNotNull(actual);
+            assertEquals(expected.getLabel(), actual.getLabel());
+            assertEquals(expected.getVertex(Direction.OUT).getId(), actual.getVertex(Direction.OUT).getId());
+            assertEquals(expected.getVertex(Direction.IN).getId(), actual.getVertex(Direction.IN).getId());
+            assertProperties(expected, actual, types);
+        }
+
+        // every type of value a snapshot supports has been compared
+        assertTrue(types.contains(String.class));
+        assertTrue(types.contains(Long.class));
+        assertTrue(types.contains(Integer.class));
+        assertTrue(types.contains(Boolean.class));
+    }
+
+    @Test
+    public void testEmptyGraph() throws Exception {
+        File file = new File(folder.getRoot(), "empty.snapshot");
+        GraphSnapshot.write(new CompactGraph(), new LinkedHashMap<String, String>(), file);
+
+        CompactGraph restored = new CompactGraph();
+        assertTrue(GraphSnapshot.read(file, restored).isEmpty());
+        assertEquals(0, restored.getVertexCount());
+        assertEquals(0, restored.getEdgeCount());
+    }
+
+    private static void assertProperties(final Element expected,
+                                         final Element actual,
+                                         final Set<Class> types) {
+        assertEquals(expected.getPropertyKeys(), actual.getPropertyKeys());
+        for (String key : expected.getPropertyKeys()) {
+            Object value = expected.getProperty(key);
+            assertEquals(value, actual.getProperty(key));
+            assertEquals(value.getClass(), actual.getProperty(key).getClass());
+            types.add(value.getClass());
+        }
+    }
+}
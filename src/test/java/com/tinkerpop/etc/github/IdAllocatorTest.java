@@ -0,0 +1,60 @@
+package com.tinkerpop.etc.github;
+
+import com.thinkaurelius.titan.graphdb.idmanagement.IDInspector;
+import com.thinkaurelius.titan.graphdb.idmanagement.IDManager;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class IdAllocatorTest {
+    private static final int DRAWS = 200000;
+
+    private final IDInspector inspector = new IDManager().getIDInspector();
+
+    @Test
+    public void testVertexIdsAreValid() throws Exception {
+        for (long seed : new long[]{0, 1, -1, Long.MAX_VALUE, Long.MIN_VALUE, 42}) {
+            IdAllocator allocator = new IdAllocator(seed);
+            for (int i = 0; i < DRAWS; i++) {
+                long id = allocator.nextVertexId();
+                assertTrue(id > 0);
+                assertTrue("not a vertex ID: " + id, inspector.isVertexID(id));
+                assertFalse(inspector.isRelationID(id));
+            }
+        }
+    }
+
+    @Test
+    public void testRelationIdsAreValid() throws Exception {
+        for (long seed : new long[]{0, 1, -1, Long.MAX_VALUE, Long.MIN_VALUE, 42}) {
+            IdAllocator allocator = new IdAllocator(seed);
+            for (int i = 0; i < DRAWS; i++) {
+                long id = allocator.nextRelationId();
+                assertTrue(id > 0);
+                assertTrue("not a relation ID: " + id, inspector.isRelationID(id));
+            }
+        }
+    }
+
+    @Test
+    public void testIdsAreRandomButReproducible() throws Exception {
+        IdAllocator a = new IdAllocator(7), b = new IdAllocator(7);
+        Set<Long> ids = new HashSet<Long>();
+        for (int i = 0; i < DRAWS; i++) {
+            long id = a.nextVertexId();
+            assertEquals(id, b.nextVertexId());
+            ids.add(id);
+        }
+
+        // collisions are possible, but not in a space this large
+        assertEquals(DRAWS, ids.size());
+    }
+}
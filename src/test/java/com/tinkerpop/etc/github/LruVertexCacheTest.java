@@ -0,0 +1,109 @@
+package com.tinkerpop.etc.github;
+
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class LruVertexCacheTest {
+    private final TinkerGraph graph = new TinkerGraph();
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        Vertex[] v = vertices(5);
+        LruVertexCache cache = new LruVertexCache(3);
+        cache.put(1, v[1]);
+        cache.put(2, v[2]);
+        cache.put(3, v[3]);
+
+        // a lookup, or a put of an existing ID, makes a vertex the most recently used
+        assertSame(v[1], cache.get(1));
+        cache.put(2, v[2]);
+        cache.put(4, v[4]);
+
+        assertNull(cache.get(3));
+        assertSame(v[1], cache.get(1));
+        assertSame(v[2], cache.get(2));
+        assertSame(v[4], cache.get(4));
+        assertEquals(3, cache.size());
+        assertEquals(4, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    public void testAgainstLinkedHashMap() throws Exception {
+        final int capacity = 100;
+        Vertex[] v = vertices(capacity * 3);
+
+        LruVertexCache cache = new LruVertexCache(capacity);
+        final long[] expectedEvictions = {0};
+        Map<Long, Vertex> expected = new LinkedHashMap<Long, Vertex>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, Vertex> eldest) {
+                if (size() > capacity) {
+                    expectedEvictions[0]++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        long expectedHits = 0, expectedMisses = 0;
+
+        Random random = new Random(0);
+        for (int i = 0; i < 1000000; i++) {
+            // IDs spread over the whole range, so that they share buckets, but with a working set near the capacity
+            int index = random.nextInt(v.length);
+            long id = index * 0x9E3779B97F4A7C15L;
+            int op = random.nextInt(1000);
+            if (0 == op) {
+                cache.clear();
+                expected.clear();
+            } else if (op < 500) {
+                Vertex vertex = expected.get(id);
+                if (null == vertex) {
+                    expectedMisses++;
+                } else {
+                    expectedHits++;
+                }
+                assertSame(vertex, cache.get(id));
+            } else {
+                cache.put(id, v[index]);
+                expected.put(id, v[index]);
+            }
+
+            assertEquals(expected.size(), cache.size());
+        }
+
+        assertEquals(expectedHits, cache.getHits());
+        assertEquals(expectedMisses, cache.getMisses());
+        assertEquals(expectedEvictions[0], cache.getEvictions());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityMustBePositive() throws Exception {
+        new LruVertexCache(0);
+    }
+
+    private Vertex[] vertices(final int count) {
+        Vertex[] vertices = new Vertex[count];
+        for (int i = 0; i < count; i++) {
+            vertices[i] = graph.addVertex(null);
+        }
+        return vertices;
+    }
+}
@@ -0,0 +1,112 @@
+package com.tinkerpop.etc.github;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class PropertyTableTest {
+    private static final int SLOTS = 100000;
+
+    @Test
+    public void testRareKeysStaySparse() throws Exception {
+        PropertyTable table = new PropertyTable();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            table.set(slot, "type", "user");
+            if (0 == slot % 1000) {
+                table.set(slot, "rare", (long) slot);
+            }
+        }
+
+        assertTrue(table.getColumn("type").isDense());
+        assertFalse(table.getColumn("rare").isDense());
+        assertEquals(5000L, table.get(5000, "rare"));
+        assertEquals(null, table.get(5001, "rare"));
+        assertEquals(null, table.get(SLOTS * 2, "rare"));
+    }
+
+    @Test
+    public void testRandomOperations() throws Exception {
+        // a frequent and a rare key of each type, against a map of the expected values
+        String[] keys = {"s", "S", "l", "L", "i", "I", "b", "B", "o", "O"};
+        Map<String, Map<Integer, Object>> expected = new HashMap<String, Map<Integer, Object>>();
+        for (String key : keys) {
+            expected.put(key, new HashMap<Integer, Object>());
+        }
+
+        PropertyTable table = new PropertyTable();
+        Random random = new Random(0);
+        for (int i = 0; i < 200000; i++) {
+            int k = random.nextInt(keys.length);
+            String key = keys[k];
+            // lowercase keys are set often, on even slots, and uppercase keys rarely, on odd slots
+            if (1 == k % 2 && random.nextInt(50) > 0) {
+                continue;
+            }
+            int slot = random.nextInt(SLOTS / 2) * 2 + k % 2;
+
+            if (random.nextInt(4) > 0) {
+                Object value = randomValue(random, k / 2);
+                table.set(slot, key, value);
+                expected.get(key).put(slot, value);
+            } else {
+                assertEquals(expected.get(key).remove(slot), table.remove(slot, key));
+            }
+        }
+
+        assertTrue(table.getColumn("s").isDense());
+        assertFalse(table.getColumn("S").isDense());
+        for (int slot = 0; slot < SLOTS; slot++) {
+            for (String key : keys) {
+                assertEquals(expected.get(key).get(slot), table.get(slot, key));
+            }
+            Set<String> keysOf = new HashSet<String>();
+            for (String key : keys) {
+                if (null != expected.get(key).get(slot)) {
+                    keysOf.add(key);
+                }
+            }
+            assertEquals(keysOf, table.keysOf(slot));
+        }
+    }
+
+    @Test
+    public void testTypeIsEnforced() throws Exception {
+        PropertyTable table = new PropertyTable();
+        table.declare("size", Integer.class);
+        table.set(0, "size", 42);
+        try {
+            table.set(1, "size", 42L);
+            fail("a key accepts values of one type only");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static Object randomValue(final Random random,
+                                      final int type) {
+        switch (type) {
+            case 0:
+                return "" + random.nextInt();
+            case 1:
+                return random.nextLong();
+            case 2:
+                return random.nextInt();
+            case 3:
+                return random.nextBoolean();
+            default:
+                return random.nextDouble();
+        }
+    }
+}
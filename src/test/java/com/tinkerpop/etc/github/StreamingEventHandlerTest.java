@@ -0,0 +1,94 @@
+package com.tinkerpop.etc.github;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.wrappers.id.IdGraph;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class StreamingEventHandlerTest {
+
+    @Test
+    public void testSameGraphAsBeanParser() throws Exception {
+        CompactGraph expected = Fixtures.load(GraphFactory.createCompactGraph(), true);
+
+        StringBuilder lines = new StringBuilder();
+        for (String type : Fixtures.EVENT_TYPES) {
+            lines.append(Fixtures.json(type)).append("\n");
+        }
+
+        CompactGraph actual = GraphFactory.createCompactGraph();
+        EventHandler handler = new EventHandler(actual);
+        handler.setDeterministicIds(true);
+        StreamingEventHandler streamingHandler = new StreamingEventHandler(handler, new ObjectMapper().getFactory());
+        JsonParser parser = streamingHandler.createParser(
+                new ByteArrayInputStream(lines.toString().getBytes(Charset.forName("UTF-8"))));
+        try {
+            int count = 0;
+            while (streamingHandler.handleNext(parser)) {
+                assertEquals(++count, streamingHandler.getLineNumber());
+            }
+            assertEquals(Fixtures.EVENT_TYPES.length, count);
+        } finally {
+            parser.close();
+        }
+
+        assertTrue(expected.getEdgeCount() > 0);
+        assertEquals(expected.getVertexCount(), actual.getVertexCount());
+        assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+
+        for (Vertex v : expected.getVertices()) {
+            Vertex w = actual.getVertex(v.getId());
+            assertNotNull("no vertex " + v.getProperty(IdGraph.ID), w);
+            assertSameProperties(v, w);
+        }
+        for (Edge e : expected.getEdges()) {
+            Edge f = actual.getEdge(e.getId());
+            assertNotNull("no " + e.getLabel() + " edge from "
+                    + e.getVertex(Direction.OUT).getProperty(IdGraph.ID), f);
+            assertEquals(e.getLabel(), f.getLabel());
+            assertEquals(e.getVertex(Direction.OUT).getId(), f.getVertex(Direction.OUT).getId());
+            assertEquals(e.getVertex(Direction.IN).getId(), f.getVertex(Direction.IN).getId());
+            assertSameProperties(e, f);
+        }
+    }
+
+    @Test
+    public void testEmptyStream() throws Exception {
+        CompactGraph graph = GraphFactory.createCompactGraph();
+        StreamingEventHandler streamingHandler
+                = new StreamingEventHandler(new EventHandler(graph), new ObjectMapper().getFactory());
+        JsonParser parser = streamingHandler.createParser(new ByteArrayInputStream(new byte[0]));
+        try {
+            assertFalse(streamingHandler.handleNext(parser));
+        } finally {
+            parser.close();
+        }
+        assertEquals(0, graph.getVertexCount());
+    }
+
+    private static void assertSameProperties(final Element expected,
+                                             final Element actual) {
+        String id = expected instanceof Vertex
+                ? "" + expected.getProperty(IdGraph.ID)
+                : "edge " + expected.getId();
+        assertEquals("keys of " + id, expected.getPropertyKeys(), actual.getPropertyKeys());
+        for (String key : expected.getPropertyKeys()) {
+            assertEquals(key + " of " + id, expected.getProperty(key), actual.getProperty(key));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.tinkerpop.etc.github;
+
+import org.junit.Test;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class TimestampParserTest {
+    private static final String
+            ISO_FORMAT = "yyyy-MM-dd'T'HH:mm:ssXXX",
+            RFC822_FORMAT = "yyyy/MM/dd HH:mm:ss Z";
+
+    @Test
+    public void testExamples() throws Exception {
+        assertParsed("2014-05-31T00:13:30-07:00");
+        assertParsed("2015-01-01T15:00:00Z");
+        assertParsed("2012/03/11 00:00:00 -0800");
+        assertEquals(0, TimestampParser.parse("1970-01-01T00:00:00Z"));
+        assertEquals(0, TimestampParser.parse("1970/01/01 00:00:00 +0000"));
+        assertEquals(-1000, TimestampParser.parse("1969-12-31T23:59:59Z"));
+    }
+
+    @Test
+    public void testLeapDays() throws Exception {
+        for (String date : new String[]{"2012-02-29", "2000-02-29", "1972-02-29", "2400-02-29"}) {
+            assertParsed(date + "T12:34:56Z");
+            assertParsed(date + "T00:00:00+05:30");
+            assertParsed(date.replace('-', '/') + " 23:59:59 -1000");
+            // the day after the leap day
+            assertParsed(date.substring(0, 5) + "03-01T00:00:00Z");
+        }
+
+        for (String date : new String[]{"2013-02-29", "1900-02-29", "2100-02-29", "2014-02-30", "2014-04-31"}) {
+            assertInvalid(date + "T00:00:00Z");
+            assertInvalid(date.replace('-', '/') + " 00:00:00 +0000");
+        }
+    }
+
+    @Test
+    public void testOffsets() throws Exception {
+        for (String offset : new String[]{"-12:00", "-07:00", "-03:30", "-00:01", "+00:00", "+05:45", "+14:00"}) {
+            assertParsed("2014-12-31T23:30:00" + offset);
+            assertParsed("2015-01-01T00:15:00" + offset);
+            assertParsed("2014/12/31 23:30:00 " + offset.replace(":", ""));
+        }
+
+        // the same instant on both sides of UTC
+        assertEquals(TimestampParser.parse("2014-05-31T07:13:30Z"),
+                TimestampParser.parse("2014-05-31T00:13:30-07:00"));
+        assertEquals(TimestampParser.parse("2014-05-31T07:13:30Z"),
+                TimestampParser.parse("2014/05/31 16:13:30 +0900"));
+    }
+
+    @Test
+    public void testRandomTimestamps() throws Exception {
+        Random random = new Random(0);
+        for (int i = 0; i < 20000; i++) {
+            // any second from 1970 to 2100, in any offset of whole quarter hours
+            long millis = (long) (random.nextDouble() * 4102444800L) * 1000;
+            int offsetMinutes = 15 * (random.nextInt(105) - 48);
+            TimeZone zone = TimeZone.getTimeZone(String.format("GMT%s%02d:%02d",
+                    offsetMinutes < 0 ? "-" : "+", Math.abs(offsetMinutes) / 60, Math.abs(offsetMinutes) % 60));
+
+            for (String format : new String[]{ISO_FORMAT, RFC822_FORMAT}) {
+                DateFormat f = new SimpleDateFormat(format);
+                f.setTimeZone(zone);
+                String timestamp = f.format(new Date(millis));
+                assertEquals(timestamp, millis, TimestampParser.parse(timestamp));
+            }
+        }
+    }
+
+    @Test
+    public void testMalformedTimestamps() throws Exception {
+        String[] malformed = {
+                "",
+                "2014-05-31",
+                "2014-05-31T00:13:30",
+                "2014-05-31T00:13:30-0700",
+                "2014-05-31T00:13:30 -07:00",
+                "2014-05-31T00:13:30-07:0",
+                "2014-05-31T00:13:30z",
+                "2014-05-31T00:13:30Z ",
+                "2014-05-31 00:13:30Z",
+                "2014/05/31T00:13:30Z",
+                "2014-05/31T00:13:30Z",
+                "2014-05-31T00-13-30Z",
+                "2014-5-31T00:13:30-07:00",
+                "2014-00-31T00:13:30Z",
+                "2014-13-01T00:13:30Z",
+                "2014-05-00T00:13:30Z",
+                "2014-05-31T24:00:00Z",
+                "2014-05-31T00:60:00Z",
+                "2014-05-31T00:00:60Z",
+                "2014-05-31T00:13:30*07:00",
+                "2014-05-31T00:13:30+24:00",
+                "2014-05-31T00:13:30+07:60",
+                "2O14-05-31T00:13:30Z",
+                "2014-05-31T00:13:3aZ",
+                "2012/03/11 00:00:00 -08:00",
+                "2012/03/11 00:00:00 0800",
+                "2012/03/11 00:00:00-0800",
+                "2012/03/11 00:00:00 Z",
+                "2012/03/11T00:00:00 -0800",
+                "2012/03/11 00:00:00 -0800 "};
+        for (String timestamp : malformed) {
+            assertInvalid(timestamp);
+        }
+
+        try {
+            TimestampParser.parse(null);
+            fail("null is not a timestamp");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static void assertParsed(final String timestamp) throws Exception {
+        DateFormat format = new SimpleDateFormat('-' == timestamp.charAt(4) ? ISO_FORMAT : RFC822_FORMAT);
+        format.setLenient(false);
+        assertEquals(timestamp, format.parse(timestamp).getTime(), TimestampParser.parse(timestamp));
+    }
+
+    private static void assertInvalid(final String timestamp) {
+        try {
+            TimestampParser.parse(timestamp);
+            fail("accepted " + timestamp);
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.tinkerpop.etc.github;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The IDs of users, repositories etc. in existing keyspaces were derived with Guava's SipHash-2-4 of the UTF-8 bytes
+ * of the original ID, so the inline hash must agree with it exactly.
+ *
+ * @author Joshua Shinavier (http://fortytwo.net)
+ */
+public class VertexIdHasherTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final HashFunction SIP_HASH = Hashing.sipHash24();
+
+    private static final String[] NAMES = {
+            "", "x", "xtagon", "joshsh", "liuliu", "twenty-four-bytes-long!!", "ccv",
+            "caf\u00e9", "\u6f22\u5b57", "emoji-\ud83d\ude00", "unpaired-\ud83d", "\udc00-unpaired", "tab\there",
+            "\u007f\u0080\u07ff\u0800\uffff"};
+
+    @Test
+    public void testSingleKeys() throws Exception {
+        VertexIdHasher hasher = new VertexIdHasher(0);
+        VertexIdHasher.Key key = new VertexIdHasher.Key();
+        for (String prefix : new String[]{"user:", "org:", "gist:", "page:", "pr:", "team:", "pr\u00e9fixe:"}) {
+            for (String name : NAMES) {
+                assertHash(prefix + name, hasher.hash(key.set(prefix, name)));
+            }
+            for (long id : new long[]{0, 1, 9, 10, 13213419, -1, -42, Long.MAX_VALUE, Long.MIN_VALUE}) {
+                assertHash(prefix + id, hasher.hash(key.set(prefix, id)));
+            }
+            for (int id : new int[]{0, 675985, Integer.MIN_VALUE}) {
+                assertHash(prefix + id, hasher.hash(key.set(prefix, id)));
+            }
+        }
+    }
+
+    @Test
+    public void testPairedKeys() throws Exception {
+        VertexIdHasher hasher = new VertexIdHasher(0);
+        VertexIdHasher.Key key = new VertexIdHasher.Key();
+        for (String owner : NAMES) {
+            for (String name : NAMES) {
+                assertHash("repo:" + owner + "/" + name, hasher.hash(key.set("repo:", owner, name)));
+            }
+        }
+
+        // proxies of supernodes, by vertex ID and time bucket, with and without a shard
+        long[] ids = {1, 4611686018427387904L, Long.MAX_VALUE};
+        long[] buckets = {0, 1401494400000L, -3600000L};
+        for (String prefix : new String[]{"proxy:", "proxy3:"}) {
+            for (long id : ids) {
+                for (long bucket : buckets) {
+                    assertHash(prefix + id + "/" + bucket, hasher.hash(key.set(prefix, id, bucket)));
+                }
+            }
+        }
+
+        // a null part is written as "null", as by concatenation
+        assertHash("repo:null/ccv", hasher.hash(key.set("repo:", null, "ccv")));
+    }
+
+    @Test
+    public void testStrings() throws Exception {
+        VertexIdHasher hasher = new VertexIdHasher(0);
+        Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            // lengths on either side of the eight-byte blocks of the hash, and any chars, including surrogates
+            char[] chars = new char[random.nextInt(40)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = random.nextBoolean() ? (char) (32 + random.nextInt(95)) : (char) random.nextInt(0x10000);
+            }
+            String s = new String(chars);
+            assertHash(s, hasher.hash(s));
+        }
+    }
+
+    @Test
+    public void testCachedKeys() throws Exception {
+        VertexIdHasher hasher = new VertexIdHasher(4);
+        VertexIdHasher.Key key = new VertexIdHasher.Key();
+        Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            // few enough keys that most lookups are served from the cache, and many evict one another
+            String name = NAMES[random.nextInt(NAMES.length)];
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertHash("user:" + name, hasher.hash(key.set("user:", name)));
+                    break;
+                case 1:
+                    assertHash("org:" + name, hasher.hash(key.set("org:", name)));
+                    break;
+                case 2:
+                    assertHash("repo:" + name + "/" + name, hasher.hash(key.set("repo:", name, name)));
+                    break;
+                default:
+                    // the same prefix and first part as a single key, which must not be confused with it
+                    assertHash("user:" + name + "/null", hasher.hash(key.set("user:", name, null)));
+                    break;
+            }
+        }
+
+        // a repeat lookup of the same key, served from the cache
+        long first = hasher.hash(key.set("gist:", 42L));
+        assertEquals(first, hasher.hash(key.set("gist:", 42L)));
+        assertHash("gist:42", first);
+    }
+
+    private static void assertHash(final String originalId,
+                                   final long actual) {
+        assertEquals(originalId, SIP_HASH.hashString(originalId, UTF8).asLong(), actual);
+    }
+}